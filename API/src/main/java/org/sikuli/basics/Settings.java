@@ -20,6 +20,15 @@ public class Settings {
   public static boolean NewAPI = true; //TODO remove/revise Region/Location methods
 
   public static boolean ImageCaching = true;
+  public static int ImageCacheMaxMB = 64; // byte budget of the image cache in MB (0 = unlimited)
+  public static boolean ImageFolderIndex = true; // image file lookups and change checks from an in-memory index
+  public static double ImageFolderPollInterval = 2.0; // seconds: folders, that cannot be watched, are listed again
+  public static boolean ContentCaching = true; // images from http(s) and jar image paths are cached on disk
+  public static int ContentCacheMaxMB = 256; // disk budget of the content cache in MB (0 = unlimited)
+  public static double ContentCacheMaxAge = 60; // seconds: cached content is used without revalidation (0 = always revalidate)
+  public static String ContentCacheFolder = null; // null: SikulixStore/ContentCache in the app data folder
+  public static boolean WarmStart = true; // startup skips checks and exports verified before (SikulixStore/WarmStart.properties)
+  public static int RecorderMemoryFrames = 10; // recorder screenshots kept in memory (0 = all), older ones spilled to disk
 
   public static synchronized void init(RunTime givenRunTime) {
     runTime = givenRunTime;
@@ -30,6 +39,8 @@ public class Settings {
   public static boolean experimental = false;
 
   public static boolean FindProfiling = false;
+  public static boolean FindMetrics = false; // find/capture/OCR timings aggregated per pattern and region (FindMetrics)
+  public static int FindTiledMinPixels = 1000000; // larger search regions are matched in parallel strips (0 = never)
 
   public static boolean InputFontMono = false;
   public static int InputFontSize = 14;
@@ -50,17 +61,29 @@ public class Settings {
   public static boolean ThrowException = true; // throw FindFailed exception
   public static float AutoWaitTimeout = 3f; // in seconds
   public static float WaitScanRate = 3f; // frames per second
+  public static boolean WaitScanIncremental = false; // repeated scans only search, where the screen changed
+  public static boolean WaitScanUpdates = true; // screens reporting updates (VNC): repeated scans wait for a change
   public static float ObserveScanRate = 3f; // frames per second
   public static int ObserveMinChangedPixels = 50; // in pixels
+  public static boolean ObserveCallBackAsync = false; // observe call backs run on their own thread, not delaying the scans
   public static int RepeatWaitTime = 1; // wait 1 second for visual to vanish after action
   public static double MinSimilarity = 0.7;
   public static double AlwaysResize = 0;
+  public static double[] FindScales = null; // multi-scale search: image resize factors to try (null = off)
   public static int DefaultPadding = 50;
   public static boolean AutoDetectKeyboardLayout = true;  
 
   public static boolean CheckLastSeen = false;
   public static float CheckLastSeenSimilar = 0.95f;
 
+  /**
+   * true = search larger images coarse-to-fine: first in a downsized version,
+   * then only around the best candidates in the original (default: false)
+   */
+  public static boolean FindDownsized = false;
+  public static double FindDownsizedTolerance = 0.15; // candidates accepted down to similarity minus this
+  public static int FindDownsizedCandidates = 3; // max candidates checked in the original
+
   public static org.sikuli.script.ImageCallback ImageCallback = null;
 
   public static double DelayValue = 0.3;
@@ -98,8 +121,23 @@ public class Settings {
   public static String OcrDataPath = null;
   public static boolean OcrTextSearch = true;
   public static boolean OcrTextRead = true;
+  public static int OcrEnginePoolSize = 4; // initialized Tesseract engines kept for reuse (0 = no reuse)
   public static boolean SwitchToText = false;
 
+  /**
+   * SikulixServer: tasks on different resources (resource=... with the request, default: the group)
+   * are run in parallel on this many workers (default 1: one after the other)
+   */
+  public static int ServerWorkers = 1;
+  public static int ServerQueueLimit = 0; // waiting tasks, more requests are rejected with HTTP 429 (0 = no limit)
+
+  /**
+   * Jython scripts run in parallel, each on one of this many isolated interpreters
+   * (own sys.path, sys.argv, stdout/stderr and ImagePath - default 0: one shared interpreter, one script at a time)
+   */
+  public static int JythonPoolSize = 0;
+  public static boolean JythonCodeCaching = true; // compiled Jython scripts are kept (memory, SikulixStore/JythonCache)
+
   public static boolean TRUE = true;
   public static boolean FALSE = false;
 
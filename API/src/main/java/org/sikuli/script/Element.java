@@ -8,6 +8,7 @@ import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.opencv.core.Mat;
 import org.opencv.core.MatOfByte;
+import org.opencv.core.Rect;
 import org.opencv.imgcodecs.Imgcodecs;
 import org.opencv.imgproc.Imgproc;
 import org.sikuli.basics.Debug;
@@ -24,6 +25,11 @@ import java.io.InputStream;
 import java.net.URL;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * INTERNAL: An abstract super-class for {@link Region}, {@link Location}, {@link Image} ... .
@@ -432,7 +438,7 @@ public abstract class Element {
       return !imageContent.empty();
     }
     if (Settings.ImageCaching) {
-      return isCached(url());
+      return isCached(url()) || !getMat(this).empty();
     }
     return !getImageContent().empty();
   }
@@ -556,8 +562,13 @@ public abstract class Element {
     byte[] bytes = null;
     Mat content = new Mat();
     try {
-      InputStream inputStream = url.openStream();
-      bytes = inputStream.readAllBytes();
+      if (ContentCache.isCacheable(url)) {
+        bytes = ContentCache.get(url);
+      } else {
+        try (InputStream inputStream = url.openStream()) {
+          bytes = inputStream.readAllBytes();
+        }
+      }
     } catch (IOException e) {
     }
     if (bytes != null) {
@@ -844,6 +855,7 @@ public abstract class Element {
     waitScanRate = element.waitScanRate;
     observeScanRate = element.observeScanRate;
     repeatWaitTime = element.repeatWaitTime;
+    findScales = element.findScales;
   }
 
   /**
@@ -932,6 +944,27 @@ public abstract class Element {
   private float observeScanRateDefault = Settings.ObserveScanRate;
   private float observeScanRate = observeScanRateDefault;
 
+  /**
+   * multi-scale search in this element: images are searched resized with the given factors,
+   * starting with the factor that matched last time on the same screen (see Pattern.scales)
+   * <br>initial value is {@link Settings#FindScales} (default null = off)
+   *
+   * @param factors resize factors (greater than 0.1, 1 = original size), none: switch off
+   */
+  public void setFindScales(double... factors) {
+    findScales = factors.length == 0 ? null : factors.clone();
+  }
+
+  /**
+   * @return the resize factors for a multi-scale search or null
+   * @see #setFindScales(double...)
+   */
+  public double[] getFindScales() {
+    return findScales;
+  }
+
+  private double[] findScales = Settings.FindScales;
+
   /**
    * INTERNAL: Observe
    *
@@ -1054,8 +1087,15 @@ public abstract class Element {
     }
   }
 
+  /**
+   * a snapshot of the cache content: url: [mat, use count, last modified, last seen match]
+   *
+   * <br>(use {@link #getCacheStats()} for statistics)
+   *
+   * @return the cache entries
+   */
   public static Map<URL, List<Object>> getCache() {
-    return ImageCache.cache;
+    return ImageCache.snapshot();
   }
 
   public static String cacheStats() {
@@ -1065,6 +1105,33 @@ public abstract class Element {
     return "";
   }
 
+  /**
+   * @return the current counters of the image cache
+   */
+  public static CacheStats getCacheStats() {
+    return ImageCache.getStats();
+  }
+
+  /**
+   * an image pinned in the cache is never evicted, when the cache exceeds Settings.ImageCacheMaxMB
+   *
+   * @param element an Image (loaded from a file, jar or http)
+   * @return false if the image is not in the cache
+   */
+  public static boolean cachePin(Element element) {
+    return ImageCache.pin(element.url(), true);
+  }
+
+  /**
+   * the image can again be evicted from the cache
+   *
+   * @param element an Image (loaded from a file, jar or http)
+   * @return false if the image is not in the cache
+   */
+  public static boolean cacheUnpin(Element element) {
+    return ImageCache.pin(element.url(), false);
+  }
+
   static boolean isCached(URL url) {
     if (Settings.ImageCaching) {
       return ImageCache.isCached(url);
@@ -1096,21 +1163,136 @@ public abstract class Element {
     ImageCache.setLastMatched(element, match);
   }
 
+  /**
+   * counters of the image cache (as taken with {@link #getCacheStats()})
+   */
+  public static class CacheStats {
+    private final int entries;
+    private final int pinned;
+    private final long bytes;
+    private final long maxBytes;
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final long reloads;
+
+    private CacheStats(int entries, int pinned, long bytes, long maxBytes,
+                       long hits, long misses, long evictions, long reloads) {
+      this.entries = entries;
+      this.pinned = pinned;
+      this.bytes = bytes;
+      this.maxBytes = maxBytes;
+      this.hits = hits;
+      this.misses = misses;
+      this.evictions = evictions;
+      this.reloads = reloads;
+    }
+
+    /**
+     * @return number of cached images
+     */
+    public int entries() {
+      return entries;
+    }
+
+    /**
+     * @return number of pinned images
+     */
+    public int pinned() {
+      return pinned;
+    }
+
+    /**
+     * @return native bytes of the cached image content
+     */
+    public long bytes() {
+      return bytes;
+    }
+
+    /**
+     * @return the byte budget (0 = unlimited)
+     */
+    public long maxBytes() {
+      return maxBytes;
+    }
+
+    /**
+     * @return image content taken from the cache
+     */
+    public long hits() {
+      return hits;
+    }
+
+    /**
+     * @return image content not in the cache (loaded again from source)
+     */
+    public long misses() {
+      return misses;
+    }
+
+    /**
+     * @return images removed, to keep the cache within its byte budget
+     */
+    public long evictions() {
+      return evictions;
+    }
+
+    /**
+     * @return images reloaded, because the image file was changed
+     */
+    public long reloads() {
+      return reloads;
+    }
+
+    public String toString() {
+      return String.format("CacheStats: entries(%d, pinned %d) size(%.0f KB of %.0f KB) " +
+              "hits(%d) misses(%d) evictions(%d) reloads(%d)",
+          entries, pinned, bytes / 1024.0, maxBytes / 1024.0, hits, misses, evictions, reloads);
+    }
+  }
+
   private static class ImageCache {
 
-    static int ITEM_MAT = 0;
-    static int ITEM_COUNT = 1;
-    static int ITEM_LASTMOD = 2;
-    static int ITEM_LASTSEEN = 3;
+    private static class Entry {
+      final Mat mat;
+      final long bytes;
+      volatile long lastModified;
+      volatile Match lastSeen = null;
+      volatile long lastUsed;
+      volatile boolean pinned = false;
+      final AtomicLong useCount = new AtomicLong(0);
+
+      Entry(Mat mat, long lastModified) {
+        this.mat = mat;
+        this.bytes = mat == null ? 0 : mat.total() * mat.elemSize();
+        this.lastModified = lastModified;
+        this.lastUsed = ticks.incrementAndGet();
+      }
+    }
+
+    static Map<URL, Entry> cache = new ConcurrentHashMap<>();
+    static Map<URL, Long> failed = new ConcurrentHashMap<>(); // not loadable: url -> file modification time then
 
-    static Map<URL, List<Object>> cache = Collections.synchronizedMap(new HashMap<>());
+    static final AtomicLong ticks = new AtomicLong(0);
+    static final AtomicLong bytes = new AtomicLong(0);
+    static final AtomicLong hits = new AtomicLong(0);
+    static final AtomicLong misses = new AtomicLong(0);
+    static final AtomicLong evictions = new AtomicLong(0);
+    static final AtomicLong reloads = new AtomicLong(0);
+
+    static long maxBytes() {
+      return Math.max(0, Settings.ImageCacheMaxMB) * 1024L * 1024L;
+    }
 
     public static boolean isCached(URL url) {
-      List<Object> items = cache.get(url);
-      if (items == null) {
+      if (url == null) {
+        return false;
+      }
+      Entry entry = cache.get(url);
+      if (entry == null) {
         return false;
       }
-      return null != items.get(0) && !((Mat) items.get(0)).empty();
+      return null != entry.mat && !entry.mat.empty();
     }
 
     static void put(URL url) {
@@ -1118,12 +1300,19 @@ public abstract class Element {
     }
 
     static Mat put(URL url, Mat mat) {
-      ArrayList<Object> items = new ArrayList<>();
-      items.add(mat);
-      items.add(0.0); //reuse count
-      items.add(isFile(url) ? new File(url.getPath()).lastModified() : -1); //to detect external change
-      items.add(null); //last seen match
-      cache.put(url, items);
+      if (url == null) {
+        return mat;
+      }
+      Entry entry = new Entry(mat, isFile(url) ? FolderIndex.lastModified(new File(url.getPath())) : -1); //to detect external change
+      failed.remove(url);
+      Entry previous = cache.put(url, entry);
+      if (previous != null) {
+        entry.pinned = previous.pinned;
+        bytes.addAndGet(-previous.bytes);
+        FindAttributes.forget(url);
+      }
+      bytes.addAndGet(entry.bytes);
+      evict(url);
       return mat;
     }
 
@@ -1132,56 +1321,88 @@ public abstract class Element {
       if (url == null) {
         return null;
       }
-      List<Object> items = cache.get(url);
-      if (items == null) {
+      Entry entry = cache.get(url);
+      if (entry == null) {
         return null;
       }
-      return (Match) items.get(ITEM_LASTSEEN);
+      return entry.lastSeen;
     }
 
     static void setLastMatched(Element element, Match match) {
       URL url = element.url();
-      if (url == null) {
+      if (url == null || match == null) {
         return;
       }
-      List<Object> items = cache.get(url);
-      if (items == null) {
+      Entry entry = cache.get(url);
+      if (entry == null) {
         return;
       }
       match.setImage(null);
-      items.set(ITEM_LASTSEEN, match);
-      cache.put(url, items);
+      entry.lastSeen = match;
+    }
+
+    static boolean pin(URL url, boolean state) {
+      if (url == null) {
+        return false;
+      }
+      Entry entry = cache.get(url);
+      if (entry == null) {
+        return false;
+      }
+      entry.pinned = state;
+      if (!state) {
+        evict(null);
+      }
+      return true;
     }
 
     static Mat getMat(Element element) {
       URL url = element.url();
-      List<Object> items = cache.get(url);
-      if (items == null) {
+      if (url == null) {
         return new Mat();
       }
-      Object content = items.get(ITEM_MAT);
-      if (null == content) {
-        return new Mat();
+      Entry entry = cache.get(url);
+      if (entry == null || null == entry.mat) {
+        Long failedModified = failed.get(url);
+        long modified = isFile(url) ? FolderIndex.lastModified(new File(url.getPath())) : -1;
+        if (failedModified != null && failedModified == modified) {
+          return new Mat(); // still missing or broken
+        }
+        misses.incrementAndGet();
+        Mat content = getMatFromURL(url, element.isMaskImage());
+        if (content.empty()) {
+          failed.put(url, modified);
+          return new Mat();
+        }
+        put(url, content);
+        return content;
       }
-      Mat newMat = possibleReload(element, url, items);
-      if (element.isReloaded()) {
-        content = newMat;
-        items.set(ITEM_MAT, content);
+      hits.incrementAndGet();
+      Mat newMat = possibleReload(element, url, entry);
+      if (element.isReloaded() && !newMat.empty()) {
+        Entry reloaded = new Entry(newMat, entry.lastModified);
+        reloaded.pinned = entry.pinned;
+        if (cache.replace(url, entry, reloaded)) {
+          bytes.addAndGet(reloaded.bytes - entry.bytes);
+          FindAttributes.forget(url);
+          evict(url);
+        }
+        entry = reloaded;
       }
-      useCountUp(items);
-      return (Mat) content;
+      entry.lastUsed = ticks.incrementAndGet();
+      entry.useCount.incrementAndGet();
+      return entry.mat;
     }
 
-    private static Mat possibleReload(Element element, URL url, List<Object> items) {
+    private static Mat possibleReload(Element element, URL url, Entry entry) {
       Mat newContent = new Mat();
       if (isFile(url)) {
-        long modified = new File(url.getPath()).lastModified();
-        long lastMod = (long) items.get(ITEM_LASTMOD);
-        if (modified > lastMod) {
+        long modified = FolderIndex.lastModified(new File(url.getPath()));
+        if (modified > entry.lastModified) {
           newContent = reload(url);
           if (!newContent.empty()) {
-            items.set(ITEM_COUNT, -1);
-            items.set(ITEM_LASTMOD, modified);
+            entry.lastModified = modified;
+            reloads.incrementAndGet();
             element.wasReloaded();
           }
         }
@@ -1189,26 +1410,83 @@ public abstract class Element {
       return newContent;
     }
 
-    private static void useCountUp(List<Object> items) {
-      Double count = (Double) items.get(ITEM_COUNT) + 1;
-      if (count < Double.MAX_VALUE) {
-        items.set(ITEM_COUNT, count);
+    /**
+     * removes the least recently used (not pinned) entries, until the cache is within its byte budget.
+     * <br>evicted Mats are not released here: images or searches may still use them,
+     * their native memory is freed with the last Java reference (pinned entries are evicted after being unpinned)
+     *
+     * @param keep the url just used (not evicted, null: none)
+     */
+    private static void evict(URL keep) {
+      long maxBytes = maxBytes();
+      if (maxBytes == 0 || bytes.get() <= maxBytes) {
+        return;
+      }
+      synchronized (ImageCache.class) {
+        List<Map.Entry<URL, Entry>> candidates = new ArrayList<>();
+        for (Map.Entry<URL, Entry> item : cache.entrySet()) {
+          if (!item.getValue().pinned && !item.getKey().equals(keep)) {
+            candidates.add(item);
+          }
+        }
+        candidates.sort(Comparator.comparingLong(item -> item.getValue().lastUsed));
+        for (Map.Entry<URL, Entry> item : candidates) {
+          if (bytes.get() <= maxBytes) {
+            break;
+          }
+          if (cache.remove(item.getKey(), item.getValue())) {
+            bytes.addAndGet(-item.getValue().bytes);
+            evictions.incrementAndGet();
+            FindAttributes.forget(item.getKey());
+            log(logLevel, "ImageCache: evicted: %s", item.getKey());
+          }
+        }
       }
     }
 
     static void reset() {
-      cache = Collections.synchronizedMap(new HashMap<>());
+      cache = new ConcurrentHashMap<>();
+      failed = new ConcurrentHashMap<>();
+      FindAttributes.forget(null);
+      bytes.set(0);
+      hits.set(0);
+      misses.set(0);
+      evictions.set(0);
+      reloads.set(0);
+    }
+
+    static Map<URL, List<Object>> snapshot() {
+      Map<URL, List<Object>> items = new HashMap<>();
+      for (Map.Entry<URL, Entry> item : cache.entrySet()) {
+        Entry entry = item.getValue();
+        items.put(item.getKey(), new ArrayList<>(Arrays.asList(
+            entry.mat, (double) entry.useCount.get(), entry.lastModified, entry.lastSeen)));
+      }
+      return items;
+    }
+
+    static CacheStats getStats() {
+      int count = 0;
+      int pinned = 0;
+      for (Entry entry : cache.values()) {
+        count++;
+        if (entry.pinned) {
+          pinned++;
+        }
+      }
+      return new CacheStats(count, pinned, bytes.get(), maxBytes(),
+          hits.get(), misses.get(), evictions.get(), reloads.get());
     }
 
     public static String stats() {
       int count = cache.size();
-      double size = 0;
       double used = 0;
-      for (List<Object> items : cache.values()) {
-        size += ((Mat) items.get(0)).width() * ((Mat) items.get(0)).height();
-        used += (Double) items.get(1);
+      for (Entry entry : cache.values()) {
+        used += entry.useCount.get();
       }
-      return String.format("ImageCache: urls(%d) size(%.0f KB) used(%.0f times)", count, size / 1000, used);
+      CacheStats stats = getStats();
+      return String.format("ImageCache: urls(%d) size(%.0f KB) used(%.0f times) hits(%d) misses(%d) evictions(%d)",
+          count, stats.bytes() / 1024.0, used, stats.hits(), stats.misses(), stats.evictions());
     }
   }
   //</editor-fold>
@@ -2027,6 +2305,229 @@ public abstract class Element {
   }
   //</editor-fold>
 
+  //<editor-fold desc="021 find image async">
+
+  /**
+   * like {@link #find(Object)}, but does not block the caller.
+   * <br>the search is run on the shared find threads
+   *
+   * @param <PSI>  Pattern, String or Image
+   * @param target what (PSI) to find in this Element
+   * @return completes with the match or exceptionally with FindFailed
+   */
+  public <PSI> CompletableFuture<Match> findAsync(PSI target) {
+    CompletableFuture<Match> future = new CompletableFuture<>();
+    startAsyncScan(future, target, 0, false, true);
+    return future;
+  }
+
+  /**
+   * like {@link #wait(Object)}, but does not block the caller (AutoWaitTimeout).
+   *
+   * @param <PSI>  Pattern, String or Image
+   * @param target what (PSI) to wait for in this Element
+   * @return completes with the match or exceptionally with FindFailed
+   */
+  public <PSI> CompletableFuture<Match> waitAsync(PSI target) {
+    return waitAsync(target, getAutoWaitTimeout());
+  }
+
+  /**
+   * like {@link #wait(Object, double)}, but does not block the caller.
+   * <br>the scans are scheduled according to the WaitScanRate and run on the shared find threads,
+   * no thread is blocked between the scans.
+   * <br>cancelling the future stops the scanning
+   *
+   * @param <PSI>   Pattern, String or Image
+   * @param target  what (PSI) to wait for in this Element
+   * @param timeout in seconds
+   * @return completes with the match or exceptionally with FindFailed
+   */
+  public <PSI> CompletableFuture<Match> waitAsync(PSI target, double timeout) {
+    CompletableFuture<Match> future = new CompletableFuture<>();
+    startAsyncScan(future, target, timeout, false, true);
+    return future;
+  }
+
+  /**
+   * like {@link #exists(Object)}, but does not block the caller (AutoWaitTimeout).
+   *
+   * @param <PSI>  Pattern, String or Image
+   * @param target what (PSI) to wait for in this Element
+   * @return completes with the match or null if not found
+   */
+  public <PSI> CompletableFuture<Match> existsAsync(PSI target) {
+    return existsAsync(target, getAutoWaitTimeout());
+  }
+
+  /**
+   * like {@link #exists(Object, double)}, but does not block the caller (see {@link #waitAsync(Object, double)}).
+   *
+   * @param <PSI>   Pattern, String or Image
+   * @param target  what (PSI) to wait for in this Element
+   * @param timeout in seconds
+   * @return completes with the match or null if not found
+   */
+  public <PSI> CompletableFuture<Match> existsAsync(PSI target, double timeout) {
+    CompletableFuture<Match> future = new CompletableFuture<>();
+    startAsyncScan(future, target, timeout, false, false);
+    return future;
+  }
+
+  /**
+   * like {@link #findAll(Object)}, but does not block the caller.
+   *
+   * @param <PSI>  Pattern, String or Image
+   * @param target what (PSI) to find in this Element
+   * @return completes with the matches or exceptionally with FindFailed
+   */
+  public <PSI> CompletableFuture<Matches> findAllAsync(PSI target) {
+    CompletableFuture<Matches> future = new CompletableFuture<>();
+    startAsyncScan(future, target, 0, true, true);
+    return future;
+  }
+
+  /**
+   * the first of the given async finds, that completes with a match (the others are cancelled).
+   * <br>completes with null, if none of them has a match
+   *
+   * @param finds e.g. waitAsync/existsAsync for different targets or elements
+   * @return the first match
+   */
+  @SafeVarargs
+  public static CompletableFuture<Match> firstOf(CompletableFuture<Match>... finds) {
+    CompletableFuture<Match> first = new CompletableFuture<>();
+    AtomicInteger pending = new AtomicInteger(finds.length);
+    if (finds.length == 0) {
+      first.complete(null);
+    }
+    for (CompletableFuture<Match> find : finds) {
+      find.whenComplete((match, error) -> {
+        if (match != null) {
+          first.complete(match);
+        } else if (pending.decrementAndGet() == 0) {
+          first.complete(null);
+        }
+      });
+    }
+    first.whenComplete((match, error) -> {
+      for (CompletableFuture<Match> find : finds) {
+        find.cancel(true);
+      }
+    });
+    return first;
+  }
+
+  private void startAsyncScan(CompletableFuture<? super Match> future, Object target, double timeout,
+                              boolean findAll, boolean shouldFail) {
+    if (!isValid()) {
+      future.complete(null);
+      return;
+    }
+    long until = new Date().getTime() + (isOnScreen() ? (long) (timeout * 1000) : 0);
+    FindAttributes findAttributes;
+    try {
+      findAttributes = new FindAttributes(target); // image loaded with the caller's ImagePath (may be thread's own)
+    } catch (Exception e) {
+      future.completeExceptionally(e);
+      return;
+    }
+    AsyncScan scan = new AsyncScan(future, findAttributes, until, findAll, shouldFail);
+    future.whenComplete((result, error) -> scan.cancel());
+    FindExecutor.get().execute(scan);
+  }
+
+  /**
+   * one search per run on a find thread, the next run is scheduled after the scan wait time
+   */
+  private class AsyncScan implements Runnable {
+    private final CompletableFuture<? super Match> future;
+    private final FindAttributes findAttributes;
+    private final long until;
+    private final boolean findAll;
+    private final boolean shouldFail;
+    private volatile ScheduledFuture<?> next = null;
+
+    AsyncScan(CompletableFuture<? super Match> future, FindAttributes findAttributes, long until,
+              boolean findAll, boolean shouldFail) {
+      this.future = future;
+      this.findAttributes = findAttributes;
+      this.until = until;
+      this.findAll = findAll;
+      this.shouldFail = shouldFail;
+    }
+
+    void cancel() {
+      ScheduledFuture<?> scheduled = next;
+      if (scheduled != null) {
+        scheduled.cancel(false);
+      }
+    }
+
+    @Override
+    public void run() {
+      if (future.isDone()) {
+        return;
+      }
+      long before = new Date().getTime();
+      try {
+        Match match = doFindScan(findAttributes, findAll);
+        if (match != null) {
+          if (isOnScreen()) {
+            if (!findAll && Settings.CheckLastSeen) {
+              setMatchLastSeen(findAttributes.originalTarget(), match);
+            }
+            if (!findAll) {
+              match(match);
+            } else {
+              matches(match);
+            }
+          }
+          future.complete(match);
+          return;
+        }
+        long now = new Date().getTime();
+        if (now >= until) {
+          if (shouldFail) {
+            future.completeExceptionally(
+                new FindFailed(FindFailed.createErrorMessage(Element.this, findAttributes.target())));
+          } else {
+            future.complete(null);
+          }
+          return;
+        }
+        long delay = Math.min((long) scanWait - (now - before), until - now);
+        next = FindExecutor.schedule(this, Math.max(10, delay));
+        if (future.isDone()) {
+          cancel();
+        }
+      } catch (Exception e) {
+        future.completeExceptionally(e);
+      }
+    }
+  }
+
+  private Match doFindScan(FindAttributes findAttributes, boolean findAll) {
+    long startFind = new Date().getTime();
+    Mat where;
+    if (!isOnScreen() && getContent().channels() == 4) {
+      where = SXOpenCV.extractMask(getContent(), true).get(0);
+    } else {
+      where = getImage().getContent();
+    }
+    long whereTime = new Date().getTime() - startFind;
+    long startSearch = new Date().getTime();
+    Match matchResult = SXOpenCV.findMatch(where, findAttributes, findAll);
+    long searchTime = new Date().getTime() - startSearch;
+    long findTime = new Date().getTime() - startFind;
+    if (FindMetrics.isEnabled()) {
+      FindMetrics.record(FindMetrics.Kind.MATCH, FindMetrics.patternKey(findAttributes.originalTarget()),
+          FindMetrics.whereKey(this), searchTime);
+    }
+    return Match.createFromResult(this, findAttributes, matchResult, new long[]{findTime, searchTime, whereTime, 0});
+  }
+  //</editor-fold>
+
   //<editor-fold desc="022 find image many">
 
   /**
@@ -2140,6 +2641,12 @@ public abstract class Element {
     return theUnion;
   }
 
+  /**
+   * searches all targets in one capture
+   *
+   * @param args Pattern, String or Image
+   * @return one entry per target in the given order: its best match or null if not found
+   */
   public List<Match> findAny(Object... args) {
     Object[] targets = new Object[args.length];
     int nTarget = 0;
@@ -2150,6 +2657,12 @@ public abstract class Element {
     return mList;
   }
 
+  /**
+   * searches all targets in one capture
+   *
+   * @param args Pattern, String or Image
+   * @return one entry per target in the given order: its best match or null if not found
+   */
   public List<Match> findAnyList(List<Object> args) {
     Object[] targets = new Object[args.size()];
     int nTarget = 0;
@@ -2173,8 +2686,8 @@ public abstract class Element {
     if (targets.size() < 2) {
       return new Match(this);
     }
-    List<Match> matches = new ArrayList<>();
-    matches = findAnyList(targets);
+    List<Match> matches = new ArrayList<>(findAnyList(targets));
+    matches.removeIf(Objects::isNull);
     if (matches.size() < 2) {
       return new Match(this);
     }
@@ -2204,17 +2717,10 @@ public abstract class Element {
       return null;
     }
     Match mResult = null;
-    List<Match> mList = findAnyList(pList);
+    List<Match> mList = new ArrayList<>(findAnyList(pList));
     if (mList.size() > 0) {
-      Collections.sort(mList, (m1, m2) -> {
-        double ms = m2.score() - m1.score();
-        if (ms < 0) {
-          return -1;
-        } else if (ms > 0) {
-          return 1;
-        }
-        return 0;
-      });
+      // not found targets (null) last
+      mList.sort(Comparator.nullsLast(Comparator.comparingDouble((Match match) -> match.score()).reversed()));
       mResult = mList.get(0);
     }
     return mResult;
@@ -2244,6 +2750,135 @@ public abstract class Element {
     return doFind(target, 0, true);
   }
 
+  private static final Map<String, Double> scalesSeen = new ConcurrentHashMap<>();
+
+  private String getScaleSeenKey(Element target) {
+    String image = target.hasURL() ? target.url().toString() : target.getName();
+    if (image == null || image.isEmpty()) {
+      return null;
+    }
+    int screen = isOnScreen() && getScreen() != null ? getScreen().getID() : -1;
+    return screen + "|" + image;
+  }
+
+  private void setScaleSeen(ScaledSearch scaled, FindAttributes findAttributes) {
+    if (scaled.seenKey != null) {
+      scalesSeen.put(scaled.seenKey, findAttributes.scale());
+    }
+  }
+
+  /**
+   * multi-scale search (Pattern.scales, setFindScales, Settings.FindScales): the scales to search,
+   * the scale that matched last time on this screen first, then the others by their distance to this scale
+   *
+   * @param target Pattern, String or Image
+   * @return null if no multi-scale search
+   */
+  private ScaledSearch getScaledSearch(Object target) {
+    double[] scales = findScales;
+    if (target instanceof Pattern && ((Pattern) target).getScales() != null) {
+      scales = ((Pattern) target).getScales();
+    }
+    if (scales == null || scales.length == 0) {
+      return null;
+    }
+    double[] valid = Arrays.stream(scales).filter(scale -> scale > 0.1).sorted().distinct().toArray();
+    if (valid.length == 0) {
+      return null;
+    }
+    ScaledSearch scaled = new ScaledSearch(target, valid, getScaleSeenKey(getImage(target)));
+    Double seen = scaled.seenKey == null ? null : scalesSeen.get(scaled.seenKey);
+    double start = seen == null ? 1 : seen;
+    Arrays.sort(scaled.order, Comparator.comparingDouble(n -> Math.abs(Math.log(valid[n] / start))));
+    return scaled;
+  }
+
+  /**
+   * a match with at least this score is taken without checking the neighbouring scales
+   */
+  private static final double SCALE_SCORE_SURE = 0.95;
+
+  /**
+   * the search of one target in different scales
+   * <pre>
+   * - the target is prepared (resized) for a scale only when the search reaches it
+   * - the scales are searched in the given order until one matches
+   * - a match below SCALE_SCORE_SURE might be a wrong neighbour of the right scale:
+   *   the neighbouring scales are checked too, as long as the score gets better (the best is taken)
+   * </pre>
+   */
+  private static class ScaledSearch {
+    final Object target;
+    final String seenKey; // the scale found is remembered with this key (null: not remembered)
+    final double[] scales; // ascending
+    final Integer[] order;
+    final FindAttributes[] prepared;
+    final boolean[] searched;
+    FindAttributes found = null;
+
+    ScaledSearch(Object target, double[] scales, String seenKey) {
+      this.target = target;
+      this.seenKey = seenKey;
+      this.scales = scales;
+      order = new Integer[scales.length];
+      for (int n = 0; n < scales.length; n++) {
+        order[n] = n;
+      }
+      prepared = new FindAttributes[scales.length];
+      searched = new boolean[scales.length];
+    }
+
+    FindAttributes get(int n) {
+      if (prepared[n] == null) {
+        prepared[n] = new FindAttributes(target, scales[n]);
+      }
+      return prepared[n];
+    }
+
+    private Match find(Mat where, int n, boolean findAll) {
+      searched[n] = true;
+      FindAttributes attributes = get(n);
+      if (attributes.what().cols() > where.cols() || attributes.what().rows() > where.rows()) {
+        return null;
+      }
+      return SXOpenCV.findMatch(where, attributes, findAll);
+    }
+
+    /**
+     * @return the best match (found: the target as prepared for its scale) or null
+     */
+    Match find(Mat where, boolean findAll) {
+      Arrays.fill(searched, false);
+      found = null;
+      int best = -1;
+      Match bestResult = null;
+      for (int n : order) {
+        bestResult = find(where, n, findAll);
+        if (bestResult != null) {
+          best = n;
+          break;
+        }
+      }
+      if (bestResult == null) {
+        return null;
+      }
+      if (bestResult.score() < SCALE_SCORE_SURE) {
+        for (int step : new int[]{-1, 1}) {
+          for (int n = best + step; n >= 0 && n < scales.length && !searched[n]; n += step) {
+            Match result = find(where, n, findAll);
+            if (result == null || result.score() <= bestResult.score()) {
+              break;
+            }
+            bestResult = result;
+            best = n;
+          }
+        }
+      }
+      found = get(best);
+      return bestResult;
+    }
+  }
+
   private boolean ignoreLastSeen = false;
 
   public void ignoreLastSeen() {
@@ -2285,14 +2920,31 @@ public abstract class Element {
       long searchTime = 0;
       Match matchResult;
       startWhat = new Date().getTime();
-      findAttributes = new FindAttributes(target);
+      ScaledSearch scaled = getScaledSearch(target);
+      findAttributes = scaled == null ? new FindAttributes(target) : scaled.get(scaled.order[0]);
       whatTime = new Date().getTime() - startWhat;
+      boolean metrics = FindMetrics.isEnabled();
+      String metricsPattern = metrics ? FindMetrics.patternKey(findAttributes.originalTarget()) : null;
+      String metricsRegion = metrics ? FindMetrics.whereKey(this) : null;
+      int scans = 0;
+      if (metrics) {
+        FindMetrics.record(FindMetrics.Kind.PREPARE, metricsPattern, metricsRegion, whatTime);
+      }
       long before = new Date().getTime();
       long waitUntil = before + (int) (timeout * 1000);
       long startWhere;
       boolean firstSearch = true;
       long whereTimeLS = 0;
       long searchTimeLS = 0;
+      boolean incremental = isOnScreen() && Settings.WaitScanIncremental && !findAll && timeout >= 0.01
+          && scaled == null;
+      IScreen screen = isOnScreen() ? getScreen() : null;
+      boolean updateDriven = screen != null && Settings.WaitScanUpdates && !findAll && timeout >= 0.01
+          && scaled == null && screen.getUpdateCount() >= 0;
+      long updateCount = updateDriven ? screen.getUpdateCount() : -1;
+      Rect updated = null;
+      Mat previousWhere = null;
+      Match previousResult = null;
       while (true) {
         if (firstSearch && isOnScreen() && shouldCheckLastSeen() && !findAll && !isVanish) {
           trace("checkLastSeen: enter");
@@ -2314,6 +2966,9 @@ public abstract class Element {
             long startSearchLS = new Date().getTime();
             matchResult = SXOpenCV.checkLastSeen(whereLastSeen, findAttributes);
             searchTimeLS = new Date().getTime() - startSearchLS;
+            if (metrics) {
+              FindMetrics.recordLastSeen(metricsPattern, matchResult != null);
+            }
             if (!isIgnoreLastSeen()) {
               if (matchResult != null) {
                 matchResult.x = lastSeenMatch.x - this.x;
@@ -2329,12 +2984,39 @@ public abstract class Element {
         }
         if (isOnScreen() && (!firstSearch || where.empty())) {
           startWhere = new Date().getTime();
+          if (updateDriven) {
+            updateCount = screen.getUpdateCount();
+          }
           where = getImage().getContent();
           whereTime = new Date().getTime() - startWhere;
         }
         startSearch = new Date().getTime();
-        matchResult = SXOpenCV.findMatch(where, findAttributes, findAll);
+        boolean searchedAll = false;
+        if (scaled != null) {
+          matchResult = scaled.find(where, findAll);
+          if (matchResult != null) {
+            findAttributes = scaled.found;
+          }
+        } else if (updated != null) {
+          matchResult = findMatchInChanged(where, updated, previousResult, findAttributes);
+        } else if (incremental && previousWhere != null) {
+          matchResult = findMatchIncremental(where, previousWhere, previousResult, findAttributes);
+          searchedAll = previousResult != null && matchResult != previousResult; // changed within the match
+        } else {
+          matchResult = SXOpenCV.findMatch(where, findAttributes, findAll);
+          searchedAll = true;
+        }
         searchTime = new Date().getTime() - startSearch;
+        scans++;
+        if (metrics) {
+          FindMetrics.record(FindMetrics.Kind.MATCH, metricsPattern, metricsRegion, searchTime);
+        }
+        if (updateDriven || (incremental && searchedAll)) {
+          // incremental: changes are always taken against the last completely searched scan,
+          // so slow changes (fading, sliding) add up, until they are detected
+          previousWhere = where;
+          previousResult = matchResult;
+        }
         if (timeout < 0.01) {
           break;
         }
@@ -2342,12 +3024,26 @@ public abstract class Element {
           break;
         }
         waitAfterScan(before, waitUntil);
+        if (updateDriven) {
+          Rectangle changed = screen.waitForUpdate(getRect(), updateCount, waitUntil - new Date().getTime());
+          if (changed == null) {
+            trace("waitForUpdate: no change until timeout");
+            break;
+          }
+          updated = new Rect(changed.x - x, changed.y - y, changed.width, changed.height);
+        }
         before = new Date().getTime();
         firstSearch = false;
       }
       long findTime = new Date().getTime() - startFind;
+      if (metrics) {
+        FindMetrics.record(FindMetrics.Kind.WAIT_SCANS, metricsPattern, metricsRegion, scans);
+      }
       long[] times = new long[]{findTime, searchTime + searchTimeLS, whereTime + whereTimeLS, whatTime};
       match = Match.createFromResult(this, findAttributes, matchResult, times);
+      if (match != null && scaled != null) {
+        setScaleSeen(scaled, findAttributes);
+      }
       if (isVanish) {
         return match;
       }
@@ -2379,60 +3075,80 @@ public abstract class Element {
     return match;
   }
 
-  private List<Match> dofindAny(Object[] targets) {
-    class FindSub implements Runnable {
-      Element element;
-      Object target;
-      int nTarget;
-      Match[] matches;
-      Boolean finished = false;
-
-      FindSub(Element element, Object target, int nTarget, Match[] matches) {
-        this.element = element.getImage();
-        this.target = target;
-        this.nTarget = nTarget;
-        this.matches = matches;
-      }
-
-      public boolean hasFinished() {
-        return hasFinished(false);
-      }
-
-      public synchronized boolean hasFinished(boolean state) {
-        if (state) {
-          finished = true;
-        }
-        return finished;
-      }
+  /**
+   * repeated scan (Settings.WaitScanIncremental): the last complete search was not successful, so
+   * only the areas changed since then need a search (previousWhere: the scan searched completely)
+   * <pre>
+   * - nothing changed: the previous result is still valid
+   * - vanish: the previous match is still there, if the change is outside of it
+   * - appear: search only in the changed area
+   * </pre>
+   */
+  private Match findMatchIncremental(Mat where, Mat previousWhere, Match previousResult, FindAttributes findAttributes) {
+    return findMatchInChanged(where, SXOpenCV.getChangedArea(previousWhere, where), previousResult, findAttributes);
+  }
 
-      @Override
-      public void run() {
-        try {
-          Match match = element.find(target);
-          matches[nTarget] = match;
-          matches[nTarget].setIndex(nTarget);
-        } catch (Exception ex) {
-        }
-        hasFinished(true);
+  /**
+   * repeated scan: the previous scan was not successful and the given area changed since then
+   * (as detected by findMatchIncremental or reported by the screen - Settings.WaitScanUpdates)
+   */
+  private Match findMatchInChanged(Mat where, Rect changed, Match previousResult, FindAttributes findAttributes) {
+    if (changed == null) {
+      trace("findIncremental: no change");
+      return previousResult;
+    }
+    if (previousResult != null) {
+      Rectangle previousMatch = new Rectangle(previousResult.x, previousResult.y,
+          findAttributes.what().width(), findAttributes.what().height());
+      if (!previousMatch.intersects(changed.x, changed.y, changed.width, changed.height)) {
+        trace("findIncremental: changed (%s) outside of match", changed);
+        return previousResult;
       }
+      return SXOpenCV.findMatch(where, findAttributes, false);
     }
+    trace("findIncremental: changed (%s)", changed);
+    return SXOpenCV.findMatchInArea(where, changed, findAttributes);
+  }
 
-    Match[] matches = new Match[targets.length];
-    FindSub[] subs = new FindSub[targets.length];
-    int nTarget = 0;
+  /**
+   * all targets are searched in one capture of this element in one pass (see FindBatch)
+   *
+   * @param targets Pattern, String or Image
+   * @return the best match of each target at its position in targets (null: not found), getIndex() is this position
+   */
+  private List<Match> dofindAny(Object[] targets) {
+    long startFind = new Date().getTime();
     Image screenImage = this.getImage();
+    Mat where = screenImage.getContent();
+    if (where.channels() == 4) {
+      where = SXOpenCV.extractMask(where, true).get(0);
+    }
+    long whereTime = new Date().getTime() - startFind;
+    long startWhat = new Date().getTime();
+    List<FindAttributes> findAttributes = new ArrayList<>();
     for (Object target : targets) {
-      subs[nTarget] = new FindSub(screenImage, target, nTarget, matches);
-      new Thread(subs[nTarget++]).start();
+      FindAttributes attributes = null;
+      try {
+        attributes = new FindAttributes(target);
+      } catch (Exception e) {
+        log(-1, "findAny: target not usable: %s (%s)", target, e.getMessage());
+      }
+      findAttributes.add(attributes);
     }
-    boolean all = false;
-    while (!all) {
-      all = true;
-      for (FindSub sub : subs) {
-        all &= sub.hasFinished();
+    long whatTime = new Date().getTime() - startWhat;
+    long startSearch = new Date().getTime();
+    List<Match> results = new FindBatch(where).metrics(this).findBest(findAttributes);
+    long searchTime = new Date().getTime() - startSearch;
+    long[] times = new long[]{new Date().getTime() - startFind, searchTime, whereTime, whatTime};
+    List<Match> matches = new ArrayList<>();
+    for (int nTarget = 0; nTarget < results.size(); nTarget++) {
+      Match match = Match.createFromResult(screenImage, findAttributes.get(nTarget), results.get(nTarget), times);
+      if (match != null) {
+        match.setIndex(nTarget);
       }
+      matches.add(match);
     }
-    return Arrays.asList(matches);
+    return matches;
   }
 
 //TODO   private Match findInImage(ScreenImage base, Object target) throws IOException {
@@ -77,6 +77,18 @@ public class Finder implements Matches {
     initScreenFinder(simg, region);
   }
 
+  /**
+   * Finder for a Region on the content of a ScreenImage (e.g. shared by finders running in parallel)
+   *
+   * @param source the ScreenImage content (not modified)
+   * @param region the cropping region
+   */
+  public Finder(Mat source, Region region) {
+    _findInput.setSource(source);
+    _region = region;
+    resetFindChanges();
+  }
+
   private void initScreenFinder(ScreenImage simg, Region region) {
     setScreenImage(simg);
     _region = region;
@@ -543,7 +555,6 @@ public class Finder implements Matches {
     private final float resizeMinFactor = 1.5f;
     private final float[] resizeLevels = new float[]{1f, 0.4f};
     private boolean isCheckLastSeen = false;
-    private static final double downSimDiff = 0.15;
 
     private boolean isWord() {
       return fInput.getTextLevel() == OCR.PAGE_ITERATOR_LEVEL_WORD;
@@ -585,91 +596,121 @@ public class Finder implements Matches {
       FindInput2 findInput = fInput;
       log.trace("doFindImage: start %s", findInput);
       mBase = findInput.getBase();
-      boolean success = false;
       long begin_lap = 0;
       long begin_find = new Date().getTime();
       Core.MinMaxLocResult mMinMax = null;
 
-      double rfactor = 0;
-      boolean downSizeFound = false;
-      double downSizeScore = -1;
-      double downSizeWantedScore = 0;
-      Mat findWhere = SXOpenCV.newMat();
-      Mat findWhat = SXOpenCV.newMat();
-
-      boolean trueOrFalse = findInput.shouldSearchDownsized(resizeMinFactor);
-      //TODO search downsized?
-      trueOrFalse = false;
-      if (trueOrFalse) {
+      if (Settings.FindDownsized && findInput.shouldSearchDownsized(resizeMinFactor)) {
         // ************************************************* search in downsized
         begin_lap = new Date().getTime();
-        double imgFactor = findInput.getResizeFactor();
-        Size sizeBase, sizePattern;
-        mResult = null;
-        for (double factor : resizeLevels) {
-          rfactor = factor * imgFactor;
-          sizeBase = new Size(this.mBase.cols() / rfactor, this.mBase.rows() / rfactor);
-          sizePattern = new Size(findInput.getTarget().cols() / rfactor, findInput.getTarget().rows() / rfactor);
-          Imgproc.resize(this.mBase, findWhere, sizeBase, 0, 0, Imgproc.INTER_AREA);
-          Imgproc.resize(findInput.getTarget(), findWhat, sizePattern, 0, 0, Imgproc.INTER_AREA);
-          mResult = doFindMatch(findWhat, findWhere, findInput);
-          mMinMax = Core.minMaxLoc(mResult);
-          downSizeWantedScore = ((int) ((findInput.getScore() - downSimDiff) * 100)) / 100.0;
-          downSizeScore = mMinMax.maxVal;
-          if (downSizeScore > downSizeWantedScore) {
-            downSizeFound = true;
-            break;
-          }
+        findResult = doFindDownsized(findInput);
+        log.trace("doFindImage: downsized: %s %d msec",
+                SX.isNotNull(findResult) ? "found" : "not found", new Date().getTime() - begin_lap);
+        if (SX.isNotNull(findResult)) {
+          log.trace("doFindImage: end %d msec", new Date().getTime() - begin_find);
+          return findResult;
         }
-        log.trace("downSizeFound: %s", downSizeFound);
-        log.trace("doFindImage: down: %%%.2f %d msec", 100 * mMinMax.maxVal, new Date().getTime() - begin_lap);
       }
-      findWhere = this.mBase;
-      trueOrFalse = !findInput.isFindAll() && downSizeFound;
-      if (trueOrFalse) {
-        // ************************************* check after downsized success
-        if (findWhere.size().equals(findInput.getTarget().size())) {
-          // trust downsized mResult, if images have same size
-          return new FindResult2(mResult, findInput);
-        } else {
-          int maxLocX = (int) (mMinMax.maxLoc.x * rfactor);
-          int maxLocY = (int) (mMinMax.maxLoc.y * rfactor);
-          begin_lap = new Date().getTime();
-          int margin = ((int) findInput.getResizeFactor()) + 1;
-          Rectangle rSub = new Rectangle(Math.max(0, maxLocX - margin), Math.max(0, maxLocY - margin),
-                  Math.min(findInput.getTarget().width() + 2 * margin, findWhere.width()),
-                  Math.min(findInput.getTarget().height() + 2 * margin, findWhere.height()));
-          Rectangle rWhere = new Rectangle(0, 0, findWhere.cols(), findWhere.rows());
-          Rectangle rSubNew = rWhere.intersection(rSub);
-          Rect rectSub = new Rect(rSubNew.x, rSubNew.y, rSubNew.width, rSubNew.height);
-          mResult = doFindMatch(findInput.getTarget(), findWhere.submat(rectSub), findInput);
-          mMinMax = Core.minMaxLoc(mResult);
-          double maxVal = mMinMax.maxVal;
-          double wantedScore = findInput.getScore();
-          if (maxVal > wantedScore) {
-            findResult = new FindResult2(mResult, findInput, new int[]{rectSub.x, rectSub.y});
-          }
-          if (SX.isNotNull(findResult)) {
-            log.trace("doFindImage after down: %%%.2f(?%%%.2f) %d msec",
-                    maxVal * 100, wantedScore * 100, new Date().getTime() - begin_lap);
-          }
+      // ************************************** search in original
+      begin_lap = new Date().getTime();
+      mResult = doFindMatch(findInput.getTarget(), mBase, findInput);
+      mMinMax = Core.minMaxLoc(mResult);
+      if (!isCheckLastSeen) {
+        log.trace("doFindImage: in original: %%%.4f (?%.0f) %d msec %s",
+                mMinMax.maxVal * 100, findInput.getScore() * 100, new Date().getTime() - begin_lap,
+                findInput.hasMask() ? " **withMask" : "");
+      }
+      if (mMinMax.maxVal > findInput.getScore()) {
+        findResult = new FindResult2(mResult, findInput);
+      }
+      log.trace("doFindImage: end %d msec", new Date().getTime() - begin_find);
+      return findResult;
+    }
+
+    /**
+     * coarse-to-fine search: match on a downsized copy of base and target (pyramid levels as given by resizeLevels),
+     * then verify the best candidates at full resolution in a small area around their upscaled positions.
+     * <br>a candidate is taken, if its downsized score is above similarity - Settings.FindDownsizedTolerance,
+     * a result is only returned, if its full resolution score is above the wanted similarity.
+     *
+     * @param findInput the find setup
+     * @return the result (offset into base) or null, if the search has to be done in the original
+     */
+    private FindResult2 doFindDownsized(FindInput2 findInput) {
+      Mat target = findInput.getTarget();
+      double imgFactor = findInput.getResizeFactor();
+      double downSizeWantedScore = ((int) ((findInput.getScore() - Settings.FindDownsizedTolerance) * 100)) / 100.0;
+      Mat findWhere = SXOpenCV.newMat();
+      Mat findWhat = SXOpenCV.newMat();
+      for (double factor : resizeLevels) {
+        double rfactor = factor * imgFactor;
+        if (rfactor < resizeMinFactor) {
+          continue;
+        }
+        long begin_lap = new Date().getTime();
+        Size sizeBase = new Size(mBase.cols() / rfactor, mBase.rows() / rfactor);
+        Size sizePattern = new Size(target.cols() / rfactor, target.rows() / rfactor);
+        Imgproc.resize(mBase, findWhere, sizeBase, 0, 0, Imgproc.INTER_AREA);
+        Imgproc.resize(target, findWhat, sizePattern, 0, 0, Imgproc.INTER_AREA);
+        Mat downResult = doFindMatch(findWhat, findWhere, findInput);
+        List<Point> candidates = getDownsizedCandidates(downResult, downSizeWantedScore, findWhat.size());
+        log.trace("doFindImage: down(%.2f): %d candidates (?%%%.2f) %d msec",
+                rfactor, candidates.size(), downSizeWantedScore * 100, new Date().getTime() - begin_lap);
+        if (candidates.isEmpty()) {
+          continue;
+        }
+        FindResult2 findResult = doFindCandidates(candidates, rfactor, findInput);
+        if (SX.isNotNull(findResult)) {
+          return findResult;
         }
       }
-      // ************************************** search in original
-      if (downSizeScore < 0) {
-        begin_lap = new Date().getTime();
-        mResult = doFindMatch(findInput.getTarget(), findWhere, findInput);
-        mMinMax = Core.minMaxLoc(mResult);
-        if (!isCheckLastSeen) {
-          log.trace("doFindImage: in original: %%%.4f (?%.0f) %d msec %s",
-                  mMinMax.maxVal * 100, findInput.getScore() * 100, new Date().getTime() - begin_lap,
-                  findInput.hasMask() ? " **withMask" : "");
+      return null;
+    }
+
+    private List<Point> getDownsizedCandidates(Mat downResult, double downSizeWantedScore, Size whatSize) {
+      List<Point> candidates = new ArrayList<>();
+      int marginX = Math.max(1, (int) (whatSize.width / 2));
+      int marginY = Math.max(1, (int) (whatSize.height / 2));
+      while (candidates.size() < Math.max(1, Settings.FindDownsizedCandidates)) {
+        Core.MinMaxLocResult minMax = Core.minMaxLoc(downResult);
+        if (minMax.maxVal < downSizeWantedScore) {
+          break;
         }
-        if (mMinMax.maxVal > findInput.getScore()) {
-          findResult = new FindResult2(mResult, findInput);
+        candidates.add(minMax.maxLoc);
+        int locX = (int) minMax.maxLoc.x;
+        int locY = (int) minMax.maxLoc.y;
+        Range rangeX = new Range(Math.max(locX - marginX, 0), Math.min(locX + marginX + 1, downResult.width()));
+        Range rangeY = new Range(Math.max(locY - marginY, 0), Math.min(locY + marginY + 1, downResult.height()));
+        downResult.colRange(rangeX).rowRange(rangeY).setTo(new Scalar(0f));
+      }
+      return candidates;
+    }
+
+    private FindResult2 doFindCandidates(List<Point> candidates, double rfactor, FindInput2 findInput) {
+      Mat target = findInput.getTarget();
+      Rectangle rWhere = new Rectangle(0, 0, mBase.cols(), mBase.rows());
+      int margin = ((int) rfactor) + 1;
+      FindResult2 findResult = null;
+      double bestScore = -1;
+      for (Point candidate : candidates) {
+        long begin_lap = new Date().getTime();
+        int maxLocX = (int) (candidate.x * rfactor);
+        int maxLocY = (int) (candidate.y * rfactor);
+        Rectangle rSub = rWhere.intersection(new Rectangle(maxLocX - margin, maxLocY - margin,
+                target.cols() + 2 * margin, target.rows() + 2 * margin));
+        if (rSub.width < target.cols() || rSub.height < target.rows()) {
+          continue;
+        }
+        Rect rectSub = new Rect(rSub.x, rSub.y, rSub.width, rSub.height);
+        Mat subResult = doFindMatch(target, mBase.submat(rectSub), findInput);
+        Core.MinMaxLocResult mMinMax = Core.minMaxLoc(subResult);
+        log.trace("doFindImage after down: %%%.2f(?%%%.2f) at (%d,%d) %d msec", mMinMax.maxVal * 100,
+                findInput.getScore() * 100, rectSub.x, rectSub.y, new Date().getTime() - begin_lap);
+        if (mMinMax.maxVal > findInput.getScore() && mMinMax.maxVal > bestScore) {
+          bestScore = mMinMax.maxVal;
+          findResult = new FindResult2(subResult, findInput, new int[]{rectSub.x, rectSub.y});
         }
       }
-      log.trace("doFindImage: end %d msec", new Date().getTime() - begin_find);
       return findResult;
     }
 
@@ -680,26 +721,29 @@ public class Finder implements Matches {
       } else {
         Mat mWhere = where;
         if (findInput.isGray()) {
+          mWhere = SXOpenCV.newMat();
           Imgproc.cvtColor(where, mWhere, Imgproc.COLOR_BGR2GRAY);
         }
         if (!findInput.isPlainColor()) {
           if (findInput.hasMask()) {
             Mat mask = findInput.getMask();
-            Imgproc.matchTemplate(mWhere, what, mResult, Imgproc.TM_CCORR_NORMED, mask);
+            mResult = SXOpenCV.matchTemplate(mWhere, what, Imgproc.TM_CCORR_NORMED, mask);
           } else {
-            Imgproc.matchTemplate(mWhere, what, mResult, Imgproc.TM_CCOEFF_NORMED);
+            mResult = SXOpenCV.matchTemplate(mWhere, what, Imgproc.TM_CCOEFF_NORMED, null);
           }
         } else {
           Mat wherePlain = mWhere;
           Mat whatPlain = what;
           if (findInput.isBlack()) {
+            wherePlain = SXOpenCV.newMat();
+            whatPlain = SXOpenCV.newMat();
             Core.bitwise_not(mWhere, wherePlain);
             Core.bitwise_not(what, whatPlain);
           }
           if (findInput.hasMask()) {
-            Imgproc.matchTemplate(wherePlain, what, mResult, Imgproc.TM_SQDIFF_NORMED, findInput.getMask());
+            mResult = SXOpenCV.matchTemplate(wherePlain, what, Imgproc.TM_SQDIFF_NORMED, findInput.getMask());
           } else {
-            Imgproc.matchTemplate(wherePlain, whatPlain, mResult, Imgproc.TM_SQDIFF_NORMED);
+            mResult = SXOpenCV.matchTemplate(wherePlain, whatPlain, Imgproc.TM_SQDIFF_NORMED, null);
           }
           Core.subtract(Mat.ones(mResult.size(), CvType.CV_32F), mResult, mResult);
         }
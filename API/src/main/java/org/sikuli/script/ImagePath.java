@@ -6,6 +6,8 @@ package org.sikuli.script;
 import org.sikuli.basics.Debug;
 import org.sikuli.basics.FileManager;
 import org.sikuli.basics.Settings;
+import org.sikuli.script.support.ContentCache;
+import org.sikuli.script.support.FolderIndex;
 import org.sikuli.script.support.RunTime;
 
 import java.io.BufferedReader;
@@ -41,10 +43,52 @@ public class ImagePath {
   public static final String SCREENSHOT_DIRECTORY = ".screenshots";
 
   //<editor-fold desc="01 path list">
-  private static final List<PathEntry> imagePaths = Collections.synchronizedList(new ArrayList<PathEntry>());
+  private static final List<PathEntry> sharedPaths = Collections.synchronizedList(new ArrayList<PathEntry>());
 
   static {
-    imagePaths.add(null);
+    sharedPaths.add(null);
+  }
+
+  /**
+   * threads started by a thread with its own path list (e.g. observeInBackground, Python threading)
+   * get a copy of it (shared pool threads like the find threads go back to the shared list)
+   */
+  private static final ThreadLocal<List<PathEntry>> threadPaths = new InheritableThreadLocal<List<PathEntry>>() {
+    @Override
+    protected List<PathEntry> childValue(List<PathEntry> parentPaths) {
+      if (parentPaths == null) {
+        return null;
+      }
+      List<PathEntry> paths = Collections.synchronizedList(new ArrayList<PathEntry>());
+      synchronized (parentPaths) {
+        paths.addAll(parentPaths);
+      }
+      return paths;
+    }
+  };
+
+  private static List<PathEntry> paths() {
+    List<PathEntry> paths = threadPaths.get();
+    return paths == null ? sharedPaths : paths;
+  }
+
+  /**
+   * the current thread gets its own path list, starting as a copy of the current one
+   * (e.g. scripts running in parallel, each with its own bundle path)
+   */
+  public static void useOwnPaths() {
+    List<PathEntry> paths = Collections.synchronizedList(new ArrayList<PathEntry>());
+    synchronized (paths()) {
+      paths.addAll(paths());
+    }
+    threadPaths.set(paths);
+  }
+
+  /**
+   * the current thread uses the path list shared by all threads again (see useOwnPaths())
+   */
+  public static void useSharedPaths() {
+    threadPaths.remove();
   }
 
   /**
@@ -53,12 +97,12 @@ public class ImagePath {
    * @return pathentries
    */
   public static List<PathEntry> getPaths() {
-    return imagePaths;
+    return paths();
   }
 
   private static int getCount() {
-    int count = imagePaths.size();
-    for (PathEntry path : imagePaths) {
+    int count = paths().size();
+    for (PathEntry path : paths()) {
       if (path == null) {
         count--;
       }
@@ -73,7 +117,7 @@ public class ImagePath {
    */
   public static String[] get() {
     int i = 0;
-    for (PathEntry p : imagePaths) {
+    for (PathEntry p : paths()) {
       if (p == null) {
         continue;
       }
@@ -81,7 +125,7 @@ public class ImagePath {
     }
     String[] paths = new String[i];
     i = 0;
-    for (PathEntry p : imagePaths) {
+    for (PathEntry p : paths()) {
       if (p == null) {
         continue;
       }
@@ -99,9 +143,9 @@ public class ImagePath {
    * @param lvl debug level to use
    */
   public static void dump(int lvl) {
-    log(lvl, "ImagePath has %d entries (valid %d)", imagePaths.size(), getCount());
+    log(lvl, "ImagePath has %d entries (valid %d)", paths().size(), getCount());
     String bundle = "(taken as bundle path)";
-    for (PathEntry p : imagePaths) {
+    for (PathEntry p : paths()) {
       if (p == null) {
         log(lvl, "Path: NULL %s", bundle);
       } else {
@@ -118,18 +162,18 @@ public class ImagePath {
    */
   public static void reset() {
     log(lvl, "reset");
-    if (imagePaths.isEmpty()) {
+    if (paths().isEmpty()) {
       return;
     }
-    for (PathEntry pathEntry : imagePaths) {
+    for (PathEntry pathEntry : paths()) {
       if (pathEntry == null) {
         continue;
       }
       imageCachePurge();
     }
     PathEntry bundlePath = getBundle();
-    imagePaths.clear();
-    imagePaths.add(bundlePath);
+    paths().clear();
+    paths().add(bundlePath);
   }
 
   //TODO image cache purge ???
@@ -361,7 +405,7 @@ public class ImagePath {
       PathEntry path = new PathEntry(pathHTTP, aURL);
       if (hasPath(path) < 0) {
         log(lvl, "add: %s", path);
-        imagePaths.add(path);
+        paths().add(path);
       } else {
         log(lvl, "duplicate not added: %s", path);
       }
@@ -415,7 +459,7 @@ public class ImagePath {
     if (pathEntry != null) {
       if (hasPath(pathEntry) < 0) {
         log(lvl, "add: %s", pathEntry);
-        imagePaths.add(pathEntry);
+        paths().add(pathEntry);
       } else {
         log(lvl, "duplicate not added: %s", pathEntry);
       }
@@ -448,13 +492,13 @@ public class ImagePath {
 
   private static int hasPath(PathEntry path) {
     PathEntry bundle = getBundle();
-    if (imagePaths.size() == 1 && bundle == null) {
+    if (paths().size() == 1 && bundle == null) {
       return -1;
     }
     if (bundle != null && bundle.equals(path)) {
       return 0;
     }
-    for (PathEntry pathEntry : imagePaths.subList(1, imagePaths.size())) {
+    for (PathEntry pathEntry : paths().subList(1, paths().size())) {
       if (pathEntry != null && pathEntry.equals(path)) {
         return 1;
       }
@@ -468,7 +512,7 @@ public class ImagePath {
    * @param pURL a valid URL (not checked)
    */
   public static void add(URL pURL) {
-    imagePaths.add(new PathEntry("__PATH_URL__", pURL));
+    paths().add(new PathEntry("__PATH_URL__", pURL));
   }
 
   /**
@@ -508,7 +552,7 @@ public class ImagePath {
       imageCachePurge();
       return true;
     }
-    Iterator<PathEntry> it = imagePaths.subList(1, imagePaths.size()).iterator();
+    Iterator<PathEntry> it = paths().subList(1, paths().size()).iterator();
     PathEntry pathEntry;
     while (it.hasNext()) {
       pathEntry = it.next();
@@ -600,11 +644,11 @@ public class ImagePath {
   }
 
   static PathEntry getBundle() {
-    return imagePaths.get(0);
+    return paths().get(0);
   }
 
   private static void setBundle(PathEntry pathEntry) {
-    imagePaths.set(0, pathEntry);
+    paths().set(0, pathEntry);
   }
 
   /**
@@ -647,17 +691,34 @@ public class ImagePath {
         proto = path.pathURL.getProtocol();
         if ("file".equals(proto)) {
           imageFile = new File(path.pathURL.getPath(), imageFileName);
-          if (imageFile.exists()) {
+          if (FolderIndex.exists(imageFile)) {
             fURL = Element.createURL(imageFile);
             break;
           }
         } else if ("jar".equals(proto) || proto.startsWith("http")) { //TODO imagepath jar and net
-          fURL = FileManager.getURLForContentFromURL(path.pathURL, imageFileName);
+          fURL = ContentCache.findFresh(path.pathURL, imageFileName);
+          if (fURL == null) {
+            fURL = FileManager.getURLForContentFromURL(path.pathURL, imageFileName);
+          }
         }
         if (fURL != null) {
           break;
         }
       }
+      if (fURL == null && Settings.ImageFolderIndex && FolderIndex.shouldCheckMissing(imageFileName)) {
+        // the folder index might not yet know a file just created
+        for (PathEntry path : getPaths()) {
+          if (path == null || !path.isFile()) {
+            continue;
+          }
+          imageFile = new File(path.pathURL.getPath(), imageFileName);
+          if (imageFile.exists()) {
+            FolderIndex.invalidate(imageFile.getAbsoluteFile().getParentFile());
+            fURL = Element.createURL(imageFile);
+            break;
+          }
+        }
+      }
       if (fURL == null) {
         log(-1, "find: %s file not found", imageFileName);
         dump(lvl);
@@ -670,6 +731,29 @@ public class ImagePath {
     return find(new File(imageFileName));
   }
 
+  /**
+   * loads the given images from all http(s) and jar entries of the image path in parallel
+   * into the local content cache (Settings.ContentCaching), so later loads need no download
+   *
+   * @param imageFileNames relative image file names (.png is added if no extension)
+   * @return the number of images now in the content cache
+   */
+  public static int prefetch(String... imageFileNames) {
+    List<URL> urls = new ArrayList<>();
+    for (PathEntry path : getPaths()) {
+      if (path == null || !ContentCache.isCacheable(path.pathURL)) {
+        continue;
+      }
+      for (String imageFileName : imageFileNames) {
+        URL url = ContentCache.makeURL(path.pathURL, Element.getValidImageFilename(imageFileName));
+        if (url != null) {
+          urls.add(url);
+        }
+      }
+    }
+    return ContentCache.prefetch(urls);
+  }
+
   private static URL normalize(URL url) {
     String path = url.getPath();
     if ("file".equals(url.getProtocol())) {
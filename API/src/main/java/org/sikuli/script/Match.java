@@ -132,6 +132,7 @@ public class Match extends Region implements Matches, Comparable<Match> {
     }
     lastFindTime = m.lastFindTime;
     lastSearchTime = m.lastSearchTime;
+    scale = m.scale;
     setScreen(m.getScreen());
   }
 
@@ -369,6 +370,15 @@ public class Match extends Region implements Matches, Comparable<Match> {
   }
 
   private int index = -1;
+
+  /**
+   * @return the resize factor of the image, that gave this match in a multi-scale search (1 otherwise)
+   */
+  public double getScale() {
+    return scale;
+  }
+
+  private double scale = 1;
   //</editor-fold>
 
   //<editor-fold desc="09 timing">
@@ -412,9 +422,7 @@ public class Match extends Region implements Matches, Comparable<Match> {
   }
 
   public Match(Point point, double score, Mat result) {
-    this();
-    this.x = point.x;
-    this.y = point.y;
+    init(point.x, point.y, 1, 1, null); // a search result in a Mat: not bound to a screen (works headless)
     this.simScore = score;
     this.result = result;
   }
@@ -425,10 +433,20 @@ public class Match extends Region implements Matches, Comparable<Match> {
       match = new Match();
       match.setX(where.x + matchResult.x);
       match.setY(where.y + matchResult.y);
-      match.setW(findAttributes.target().w);
-      match.setH(findAttributes.target().h);
+      if (findAttributes.scale() != 1) {
+        match.setW(findAttributes.what().cols());
+        match.setH(findAttributes.what().rows());
+      } else {
+        match.setW(findAttributes.target().w);
+        match.setH(findAttributes.target().h);
+      }
+      match.scale = findAttributes.scale();
       match.score(matchResult.score());
-      match.setTargetOffset(findAttributes.target().offset());
+      Location offset = findAttributes.target().offset();
+      if (findAttributes.scale() != 1) { // given in pixels of the original image
+        offset = new Location(Math.round(offset.x * findAttributes.scale()), Math.round(offset.y * findAttributes.scale()));
+      }
+      match.setTargetOffset(offset);
       match.setImage(findAttributes.originalTarget());
       match.onScreen(where.isOnScreen());
       match.lastFindTime = times[0];
@@ -40,6 +40,7 @@ public class Pattern {
     offset.y = pattern.offset.y;
     maskImage = pattern.getMask();
     resizeFactor = pattern.resizeFactor;
+    scales = pattern.scales;
     waitAfter = pattern.waitAfter;
   }
 
@@ -95,6 +96,28 @@ public class Pattern {
   }
 
   private float resizeFactor = 0;
+
+  /**
+   * multi-scale search: the image is searched resized with the given factors,
+   * starting with the factor that matched last time on the same screen
+   * (replaces resize, overrides Region.setFindScales and Settings.FindScales)
+   *
+   * @param factors resize factors (greater than 0.1, 1 = original size), none: switch off
+   * @return this
+   */
+  public Pattern scales(double... factors) {
+    scales = factors.length == 0 ? null : factors.clone();
+    return this;
+  }
+
+  /**
+   * @return the resize factors for a multi-scale search or null
+   */
+  public double[] getScales() {
+    return scales;
+  }
+
+  private double[] scales = null;
   //</editor-fold>
 
   //<editor-fold desc="mask">
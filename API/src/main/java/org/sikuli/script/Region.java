@@ -16,6 +16,7 @@ import java.awt.event.KeyEvent;
 import java.io.IOException;
 import java.util.List;
 import java.util.*;
+import java.util.concurrent.Callable;
 
 /**
  * A Region is a rectangular area on a screen.
@@ -2428,46 +2429,6 @@ public class Region extends Element {
     }
   }
 
-  private class SubFindRun implements Runnable {
-
-    Match[] mArray;
-    ScreenImage base;
-    Object target;
-    Region reg;
-    boolean finished = false;
-    int subN;
-
-    public SubFindRun(Match[] pMArray, int pSubN,
-                      ScreenImage pBase, Object pTarget, Region pReg) {
-      subN = pSubN;
-      base = pBase;
-      target = pTarget;
-      reg = pReg;
-      mArray = pMArray;
-    }
-
-    @Override
-    public void run() {
-      try {
-        mArray[subN] = reg.findInImage(base, target);
-      } catch (Exception ex) {
-        log(-1, "findAnyCollect: image file not found:\n", target);
-      }
-      hasFinished(true);
-    }
-
-    public boolean hasFinished() {
-      return hasFinished(false);
-    }
-
-    public synchronized boolean hasFinished(boolean state) {
-      if (state) {
-        finished = true;
-      }
-      return finished;
-    }
-  }
-
   private Match findInImage(ScreenImage base, Object target) throws IOException {
     Finder finder = null;
     Match match = null;
@@ -2491,7 +2452,7 @@ public class Region extends Element {
       }
       if (findingText) {
         log(logLevel, "findInImage: Switching to TextSearch");
-        finder = new Finder(getScreen().capture(x, y, w, h), this);
+        finder = new Finder(base, this);
         finder.findText((String) target);
       }
     } else if (target instanceof Pattern) {
@@ -2531,34 +2492,30 @@ public class Region extends Element {
     if (pList == null) {
       return mList;
     }
-    Match[] mArray = new Match[pList.size()];
-    SubFindRun[] theSubs = new SubFindRun[pList.size()];
-    int nobj = 0;
     ScreenImage base = getScreen().capture(this);
+    List<Callable<Match>> finds = new ArrayList<>();
     for (Object obj : pList) {
-      mArray[nobj] = null;
       if (obj instanceof Pattern || obj instanceof String || obj instanceof Image) {
-        theSubs[nobj] = new SubFindRun(mArray, nobj, base, obj, this);
-        new Thread(theSubs[nobj]).start();
-      }
-      nobj++;
-    }
-    Debug.log(logLevel, "findAnyCollect: waiting for SubFindRuns");
-    nobj = 0;
-    boolean all = false;
-    while (!all) {
-      all = true;
-      for (SubFindRun sub : theSubs) {
-        all &= sub.hasFinished();
+        finds.add(() -> {
+          try {
+            return findInImage(base, obj);
+          } catch (IOException ex) {
+            log(-1, "findAnyCollect: image file not found:\n", obj);
+          }
+          return null;
+        });
+      } else {
+        finds.add(null);
       }
     }
-    Debug.log(logLevel, "findAnyCollect: SubFindRuns finished");
-    nobj = 0;
+    Debug.log(logLevel, "findAnyCollect: waiting for %d finds", finds.size());
+    List<Match> mArray = FindExecutor.invokeAll(finds);
+    Debug.log(logLevel, "findAnyCollect: finds finished");
+    int nobj = 0;
     for (Match match : mArray) {
       if (match != null) {
         match.setIndex(nobj);
         mList.add(match);
-      } else {
       }
       nobj++;
     }
@@ -3050,9 +3007,22 @@ public class Region extends Element {
     regionObserver.initialize();
     observing = true;
     Observing.addRunningObserver(this);
+    IScreen screen = getScreen();
+    boolean updateDriven = Settings.WaitScanUpdates && screen != null && screen.getUpdateCount() >= 0;
+    long updateCount = -1;
     while (observing && stop_t > (new Date()).getTime()) {
+      if (updateDriven && updateCount >= 0) {
+        //no capture as long as nothing changed in the region (checking for stop at least every second)
+        long wait = Math.min(stop_t - new Date().getTime(), 1000);
+        if (null == screen.waitForUpdate(getRect(), updateCount, wait)) {
+          continue;
+        }
+      }
+      if (updateDriven) {
+        updateCount = screen.getUpdateCount();
+      }
       long before_find = (new Date()).getTime();
-      ScreenImage simg = getScreen().capture(x, y, w, h);
+      ScreenImage simg = Observing.getCapture().capture(this);
       if (!regionObserver.update(simg)) {
         observing = false;
         break;
@@ -656,6 +656,10 @@ public class Screen extends Region implements IScreen {
       Debug.logp("[FindProfiling] Screen.capture [%d x %d]: %d msec",
               rect.width, rect.height, new Date().getTime() - lastCaptureTime);
     }
+    if (FindMetrics.isEnabled()) {
+      FindMetrics.record(FindMetrics.Kind.CAPTURE, null, FindMetrics.regionKey(rect),
+          new Date().getTime() - lastCaptureTime);
+    }
     lastScreenImage = simg;
     if (Debug.getDebugLevel() > lvl) {
       simg.saveLastScreenImage(RunTime.get().fSikulixStore);
@@ -46,6 +46,22 @@ public class ScreenImage extends Image {
     onScreen(false);
   }
 
+  /**
+   * create ScreenImage with given
+   *
+   * @param roi     the rectangle it was taken from
+   * @param content the image content as BGR Mat (not copied, should not be changed afterwards)
+   */
+  public ScreenImage(Rectangle roi, Mat content) {
+    _roi = roi;
+    x = (int) roi.getX();
+    y = (int) roi.getY();
+    w = content.cols();
+    h = content.rows();
+    setContent(content);
+    onScreen(false);
+  }
+
   /**
    * create ScreenImage from given
    *
@@ -88,11 +104,14 @@ public class ScreenImage extends Image {
    * @return the stored image in memory
    */
   public BufferedImage getBufferedImage() {
+    if (_img == null) {
+      _img = SXOpenCV.makeBufferedImage(getContent());
+    }
     return _img;
   }
 
   public Mat makeMat() {
-    return SXOpenCV.makeMat(_img);
+    return SXOpenCV.makeMat(getBufferedImage());
   }
 
   /**
@@ -115,7 +134,7 @@ public class ScreenImage extends Image {
     if (!_roi.contains(sub)) {
       return this;
     }
-    BufferedImage img = _img.getSubimage(sub.x - x, sub.y - y, sub.width, sub.height);
+    BufferedImage img = getBufferedImage().getSubimage(sub.x - x, sub.y - y, sub.width, sub.height);
     return new ScreenImage(sub, img);
   }
 
@@ -135,7 +154,7 @@ public class ScreenImage extends Image {
   public String saveInto(File path) {
     File fImage = new File(path, String.format("%s-%d.png", "sikuliximage", new Date().getTime()));
     try {
-      ImageIO.write(_img, FilenameUtils.getExtension(fImage.getName()), fImage);
+      ImageIO.write(getBufferedImage(), FilenameUtils.getExtension(fImage.getName()), fImage);
       log(3, "saveImage: %s", fImage);
     } catch (Exception ex) {
       log(-1, "saveTimedImage: did not work: %s (%s)", fImage, ex.getMessage());
@@ -186,7 +205,7 @@ public class ScreenImage extends Image {
   private void storeImage(File imageFile) throws IOException {
     String filename = imageFile.getAbsolutePath();
     if (!filename.equals(_filename) || imageFile.getName().startsWith("_")) {
-      ImageIO.write(_img, FilenameUtils.getExtension(filename), imageFile);
+      ImageIO.write(getBufferedImage(), FilenameUtils.getExtension(filename), imageFile);
       _filename = filename;
     }
   }
@@ -240,7 +259,7 @@ public class ScreenImage extends Image {
    * @return absolute path to stored file
    */
   public String save() {
-    return FileManager.saveTimedImage(_img, RunTime.get().fpBaseTempPath, "#sikuliximage");
+    return FileManager.saveTimedImage(getBufferedImage(), RunTime.get().fpBaseTempPath, "#sikuliximage");
   }
 
   /**
@@ -256,7 +275,7 @@ public class ScreenImage extends Image {
 
   public void saveLastScreenImage(File fPath) {
     try {
-      ImageIO.write(_img, "png", new File(fPath, "LastScreenImage.png"));
+      ImageIO.write(getBufferedImage(), "png", new File(fPath, "LastScreenImage.png"));
     } catch (Exception ex) {
     }
   }
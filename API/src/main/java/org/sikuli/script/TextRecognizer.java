@@ -3,13 +3,13 @@
  */
 package org.sikuli.script;
 
-import net.sourceforge.tess4j.ITesseract;
 import net.sourceforge.tess4j.Tesseract1;
 import net.sourceforge.tess4j.TesseractException;
 import net.sourceforge.tess4j.Word;
 import org.opencv.core.Mat;
 import org.sikuli.basics.Debug;
 import org.sikuli.basics.Settings;
+import org.sikuli.script.support.FindMetrics;
 import org.sikuli.script.support.RunTime;
 import org.sikuli.script.support.SXOpenCV;
 
@@ -20,10 +20,8 @@ import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.ByteBuffer;
-import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.*;
 import java.util.List;
-import java.util.Map;
 
 /**
  * Intended to be used only internally - still public for being backward compatible
@@ -78,9 +76,9 @@ public class TextRecognizer {
     return textRecognizer;
   }
 
-  private ITesseract getTesseractAPI() {
+  private PooledTesseract getTesseractAPI() {
     try {
-      ITesseract tesseract = new Tesseract1();
+      PooledTesseract tesseract = new PooledTesseract(poolKey(options));
       tesseract.setOcrEngineMode(options.oem());
       tesseract.setPageSegMode(options.psm());
       tesseract.setLanguage(options.language());
@@ -131,6 +129,98 @@ public class TextRecognizer {
   }
   //</editor-fold>
 
+  //<editor-fold desc="01 engine pool">
+
+  /**
+   * A Tesseract engine, that stays initialized (traineddata loaded) between OCR calls.
+   * <br>Tess4J initializes and disposes the native engine with every call -
+   * while pooled, dispose is suppressed and the native engine is only deleted with close().
+   * <br>An engine is only used by the thread, that borrowed it, until it is returned.
+   */
+  private static class PooledTesseract extends Tesseract1 {
+
+    private final String key;
+    private boolean initialized = false;
+
+    PooledTesseract(String key) {
+      this.key = key;
+    }
+
+    @Override
+    protected void init() {
+      if (!initialized) {
+        super.init();
+        initialized = true;
+      }
+    }
+
+    @Override
+    protected void dispose() {
+    }
+
+    void close() {
+      if (initialized) {
+        super.dispose();
+        initialized = false;
+      }
+    }
+  }
+
+  private static final LinkedList<PooledTesseract> enginePool = new LinkedList<>();
+
+  private static String poolKey(OCR.Options options) {
+    return String.format("%s|%s|%d|%d|%s|%s", options.language(), options.dataPath(), options.oem(), options.psm(),
+        new TreeMap<>(options.variables()), options.configs());
+  }
+
+  private PooledTesseract borrowTesseractAPI() {
+    String key = poolKey(options);
+    synchronized (enginePool) {
+      Iterator<PooledTesseract> engines = enginePool.iterator();
+      while (engines.hasNext()) {
+        PooledTesseract engine = engines.next();
+        if (engine.key.equals(key)) {
+          engines.remove();
+          return engine;
+        }
+      }
+    }
+    return getTesseractAPI();
+  }
+
+  private static void returnTesseractAPI(PooledTesseract engine, boolean reusable) {
+    PooledTesseract evicted = null;
+    if (reusable && Settings.OcrEnginePoolSize > 0) {
+      synchronized (enginePool) {
+        enginePool.addFirst(engine);
+        if (enginePool.size() > Settings.OcrEnginePoolSize) {
+          evicted = enginePool.removeLast();
+        }
+      }
+    } else {
+      evicted = engine;
+    }
+    if (evicted != null) {
+      evicted.close();
+    }
+  }
+
+  /**
+   * INTERNAL: releases all idle Tesseract engines (native memory)
+   */
+  public static void clearEnginePool() {
+    List<PooledTesseract> engines;
+    synchronized (enginePool) {
+      engines = new ArrayList<>(enginePool);
+      enginePool.clear();
+    }
+    for (PooledTesseract engine : engines) {
+      engine.close();
+    }
+    Debug.log(lvl, "OCR: engine pool: %d engines released", engines.size());
+  }
+  //</editor-fold>
+
   //<editor-fold desc="02 set OEM, PSM">
 
   /**
@@ -309,6 +399,7 @@ public class TextRecognizer {
   }
 
   protected <SFIRBS> String doRead(SFIRBS from) {
+    long startOCR = new Date().getTime();
     try {
       String text = "";
       if (from instanceof Mat) {
@@ -317,26 +408,53 @@ public class TextRecognizer {
           img = SXOpenCV.optimize(img, options.factor(), options.resizeInterpolation());
           byte[] bytes = new byte[img.width() * img.height()];
           int n = img.get(0, 0, bytes);
-          text = getTesseractAPI().doOCR(img.width(), img.height(), ByteBuffer.wrap(bytes), null, 8);
+          PooledTesseract tesseract = borrowTesseractAPI();
+          boolean reusable = false;
+          try {
+            text = tesseract.doOCR(img.width(), img.height(), ByteBuffer.wrap(bytes), null, 8);
+            reusable = true;
+          } finally {
+            returnTesseractAPI(tesseract, reusable);
+          }
         } else {
           return "";
         }
       } else {
         BufferedImage bimg = SXOpenCV.optimize(Element.getBufferedImage(from), options.factor(), options.resizeInterpolation());
-        text = getTesseractAPI().doOCR(bimg);
+        PooledTesseract tesseract = borrowTesseractAPI();
+        boolean reusable = false;
+        try {
+          text = tesseract.doOCR(bimg);
+          reusable = true;
+        } finally {
+          returnTesseractAPI(tesseract, reusable);
+        }
       }
       return text.trim().replace("\n\n", "\n");
     } catch (TesseractException e) {
       Debug.error("OCR: read: Tess4J: doOCR: %s", e.getMessage());
       return "";
+    } finally {
+      if (FindMetrics.isEnabled()) {
+        FindMetrics.record(FindMetrics.Kind.OCR, null, FindMetrics.whereKey(from), new Date().getTime() - startOCR);
+      }
     }
   }
 
   protected <SFIRBS> List<Match> readTextItems(SFIRBS from, int level) {
+    long startOCR = new Date().getTime();
     List<Match> lines = new ArrayList<>();
     BufferedImage bimg = Element.getBufferedImage(from);
     BufferedImage bimgResized = SXOpenCV.optimize(bimg, options.factor(), options.resizeInterpolation());
-    List<Word> textItems = getTesseractAPI().getWords(bimgResized, level);
+    List<Word> textItems;
+    PooledTesseract tesseract = borrowTesseractAPI();
+    boolean reusable = false;
+    try {
+      textItems = tesseract.getWords(bimgResized, level);
+      reusable = true;
+    } finally {
+      returnTesseractAPI(tesseract, reusable);
+    }
     double wFactor = (double) bimg.getWidth() / bimgResized.getWidth();
     double hFactor = (double) bimg.getHeight() / bimgResized.getHeight();
     for (Word textItem : textItems) {
@@ -348,6 +466,9 @@ public class TextRecognizer {
           1 + (int) (boundingBox.height * hFactor) + 2);
       lines.add(new Match(realBox, textItem.getConfidence(), textItem.getText().trim()));
     }
+    if (FindMetrics.isEnabled()) {
+      FindMetrics.record(FindMetrics.Kind.OCR, null, FindMetrics.whereKey(from), new Date().getTime() - startOCR);
+    }
     return lines;
   }
   //</editor-fold>
@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2010-2020, sikuli.org, sikulix.com - MIT license
+ */
+
+package org.sikuli.script.runnerSupport;
+
+import org.apache.commons.io.FilenameUtils;
+import org.python.core.BytecodeLoader;
+import org.python.core.PyCode;
+import org.python.core.PySystemState;
+import org.python.core.imp;
+import org.sikuli.basics.Debug;
+import org.sikuli.basics.FileManager;
+import org.sikuli.script.support.RunTime;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.*;
+
+/**
+ * INTERNAL: the compiled code of Jython scripts run with JythonRunner, so a script is compiled only once
+ * as long as it is not changed.
+ * <pre>
+ * - key: SHA-256 of the script's path and content (a changed script gets a new entry)
+ * - in memory: the code of the most recently run scripts (usable with all interpreters)
+ * - on disk: the $py.class bytes in SikulixStore/JythonCache/(Jython version) in the SikuliX app data folder,
+ *   folders of other Jython versions are deleted
+ * - when the cached bytes exceed DISK_MAX_MB, the least recently used are deleted
+ * </pre>
+ */
+public class JythonCodeCache {
+
+  private static String me = "JythonCodeCache: ";
+  private static int lvl = 3;
+
+  private static void log(int level, String message, Object... args) {
+    Debug.logx(level, me + message, args);
+  }
+
+  private static final int MEMORY_ENTRIES = 512;
+  private static final int DISK_MAX_MB = 64;
+
+  private JythonCodeCache() {
+  }
+
+  private static final Map<String, PyCode> codes = new LinkedHashMap<String, PyCode>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, PyCode> eldest) {
+      return size() > MEMORY_ENTRIES;
+    }
+  };
+
+  private static File folder = null;
+
+  private static synchronized File getFolder() {
+    if (folder == null) {
+      File cacheFolder = new File(RunTime.get().fSikulixStore, "JythonCache");
+      String version = "jython-" + Integer.toHexString(PySystemState.hexversion) + "-" + imp.getAPIVersion();
+      File[] others = cacheFolder.listFiles(file -> file.isDirectory() && !file.getName().equals(version));
+      if (others != null) {
+        for (File other : others) {
+          FileManager.deleteFileOrFolder(other);
+          log(lvl, "deleted (other Jython version): %s", other.getName());
+        }
+      }
+      folder = new File(cacheFolder, version);
+      folder.mkdirs();
+    }
+    return folder;
+  }
+
+  /**
+   * the compiled script: from memory, from disk or compiled now (and cached)
+   *
+   * @param script a Jython script file
+   * @return the code to be run or null (not readable, not compilable: the error shows up with execfile)
+   */
+  public static PyCode get(File script) {
+    String filename = script.getAbsolutePath();
+    byte[] source;
+    try {
+      source = Files.readAllBytes(script.toPath());
+    } catch (IOException e) {
+      return null;
+    }
+    String key = hash(filename, source);
+    PyCode code;
+    synchronized (codes) {
+      code = codes.get(key);
+    }
+    if (code != null) {
+      log(lvl + 1, "from memory: %s", filename);
+      return code;
+    }
+    String name = FilenameUtils.getBaseName(filename).replaceAll("[^A-Za-z0-9_]", "_");
+    File compiled = new File(getFolder(), key + ".class");
+    byte[] bytes = null;
+    if (compiled.exists()) {
+      try {
+        bytes = Files.readAllBytes(compiled.toPath());
+        compiled.setLastModified(new Date().getTime()); // least recently used is evicted first
+        code = BytecodeLoader.makeCode(name + "$py", bytes, filename);
+        log(lvl + 1, "from disk: %s", filename);
+      } catch (Exception e) {
+        log(-1, "not usable (compiled again): %s (%s)", compiled, e.getMessage());
+        compiled.delete();
+        code = null;
+      }
+    }
+    if (code == null) {
+      long start = new Date().getTime();
+      try {
+        bytes = imp.compileSource(name, new ByteArrayInputStream(source), filename);
+        code = BytecodeLoader.makeCode(name + "$py", bytes, filename);
+      } catch (Exception e) {
+        return null;
+      }
+      log(lvl, "compiled: %s (%d msec)", filename, new Date().getTime() - start);
+      store(compiled, bytes);
+    }
+    synchronized (codes) {
+      codes.put(key, code);
+    }
+    return code;
+  }
+
+  /**
+   * empties the cache (memory and disk)
+   */
+  public static synchronized void clear() {
+    synchronized (codes) {
+      codes.clear();
+    }
+    File[] files = getFolder().listFiles();
+    if (files != null) {
+      for (File file : files) {
+        file.delete();
+      }
+    }
+  }
+
+  private static void store(File compiled, byte[] bytes) {
+    try {
+      File temp = File.createTempFile("code", ".tmp", getFolder());
+      Files.write(temp.toPath(), bytes);
+      Files.move(temp.toPath(), compiled.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      log(-1, "not stored: %s (%s)", compiled, e.getMessage());
+      return;
+    }
+    evict(compiled);
+  }
+
+  private static synchronized void evict(File keep) {
+    long maxBytes = DISK_MAX_MB * 1024L * 1024L;
+    File[] files = getFolder().listFiles((dir, name) -> name.endsWith(".class"));
+    if (files == null) {
+      return;
+    }
+    long bytes = 0;
+    for (File file : files) {
+      bytes += file.length();
+    }
+    if (bytes <= maxBytes) {
+      return;
+    }
+    Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+    for (File file : files) {
+      if (bytes <= maxBytes) {
+        break;
+      }
+      if (file.equals(keep)) {
+        continue;
+      }
+      long length = file.length();
+      if (file.delete()) {
+        bytes -= length;
+        log(lvl + 1, "evicted: %s", file.getName());
+      }
+    }
+  }
+
+  private static String hash(String filename, byte[] source) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      digest.update(filename.getBytes(StandardCharsets.UTF_8));
+      digest.update((byte) 0);
+      StringBuilder hex = new StringBuilder();
+      for (byte b : digest.digest(source)) {
+        hex.append(String.format("%02x", b));
+      }
+      return hex.toString();
+    } catch (Exception e) {
+      return filename.hashCode() + "-" + Arrays.hashCode(source);
+    }
+  }
+}
@@ -25,6 +25,7 @@ import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -53,14 +54,23 @@ public class JythonSupport implements IRunnerSupport {
   //<editor-fold desc="01 instance">
   private static JythonSupport instance = null;
 
-  private static PythonInterpreter interpreter = null;
+  private PythonInterpreter interpreter = null;
 
   private static RunTime runTime;
 
   private JythonSupport() {
   }
 
+  /**
+   * on a thread, that leased a pooled interpreter (see lease()), the JythonSupport of that interpreter
+   *
+   * @return the JythonSupport (singleton or leased)
+   */
   public static JythonSupport get() {
+    JythonSupport worker = leased.get();
+    if (null != worker) {
+      return worker;
+    }
     if (null == instance) {
       instance = new JythonSupport();
       init();
@@ -90,7 +100,7 @@ public class JythonSupport implements IRunnerSupport {
     runTime = RunTime.get();
     runTime.exportLib();
     try {
-      interpreter = new PythonInterpreter();
+      instance.interpreter = new PythonInterpreter();
       cPyException = Class.forName("org.python.core.PyException");
       cPyFunction = Class.forName("org.python.core.PyFunction");
       cPyMethod = Class.forName("org.python.core.PyMethod");
@@ -98,7 +108,7 @@ public class JythonSupport implements IRunnerSupport {
       cPyString = Class.forName("org.python.core.PyString");
     } catch (Exception ex) {
       instance.log(-1, "reflection problem: %s", ex.getMessage());
-      interpreter = null;
+      instance.interpreter = null;
     }
     //instance.log(lvl, "init: success");
     runTime.isJythonReady = true;
@@ -108,6 +118,7 @@ public class JythonSupport implements IRunnerSupport {
    * For experts, who want to tweak the Jython interprter instance<br>
    *   Usage: org.sikuli.script.runnerSupport.JythonSupport.get().interpreterGet()
    * @return the singleton Jython interpreter instance (org.python.util.PythonInterpreter)
+   * or the leased one on a pool thread
    */
   public PythonInterpreter interpreterGet() {
     return interpreter;
@@ -143,6 +154,221 @@ public class JythonSupport implements IRunnerSupport {
     }
     return true;
   }
+
+  /**
+   * sys.path with the Sikuli Python API (Lib) and the site-packages, imports sys and Runner
+   */
+  public void interpreterPrepare() {
+    getSysPath();
+    putSysPath(runTime.fSikulixLib.getAbsolutePath(), 0);
+    setSysPath();
+    addSitePackages();
+    showSysPath();
+    interpreterExecString("import sys");
+    interpreterExecString("import org.sikuli.script.support.Runner as Runner");
+  }
+  //</editor-fold>
+
+  //<editor-fold desc="02 interpreter pool">
+  private static final ThreadLocal<JythonSupport> leased = new ThreadLocal<>();
+
+  private static final LinkedList<JythonSupport> pool = new LinkedList<>();
+  private static final List<JythonSupport> poolLeased = new ArrayList<>();
+  private static int poolCreated = 0;
+
+  private boolean pooled = false;
+  private volatile boolean aborted = false;
+  private Thread leasedBy = null;
+
+  private JythonSupport(PythonInterpreter interpreter) {
+    this.interpreter = interpreter;
+    pooled = true;
+  }
+
+  /**
+   * @return true if scripts should run on pooled interpreters (Settings.JythonPoolSize)
+   */
+  public static boolean isPoolEnabled() {
+    return Settings.JythonPoolSize > 0;
+  }
+
+  /**
+   * creates the missing pooled interpreters in the background (Settings.JythonPoolSize),
+   * so the first runs do not have to wait for the Sikuli imports
+   */
+  public static void startPool() {
+    get();
+    int missing;
+    synchronized (pool) {
+      missing = Math.max(0, Settings.JythonPoolSize - poolCreated);
+      poolCreated += missing;
+    }
+    for (int n = 0; n < missing; n++) {
+      Thread starter = new Thread(() -> {
+        JythonSupport worker = createWorker();
+        synchronized (pool) {
+          if (null == worker) {
+            poolCreated--;
+          } else {
+            pool.addLast(worker);
+          }
+          pool.notifyAll();
+        }
+      }, "JythonPool-" + n);
+      starter.setDaemon(true);
+      starter.start();
+    }
+  }
+
+  /**
+   * an isolated interpreter (own sys.path, sys.argv, sys.modules, stdout/stderr) for the current thread,
+   * with its own ImagePath, until giveBack()
+   * <br>waits while all Settings.JythonPoolSize interpreters are leased
+   * <br>JythonSupport.get() returns the leased one on this thread
+   *
+   * @return the leased JythonSupport or null (interrupted, interpreter not possible)
+   */
+  public static JythonSupport lease() {
+    JythonSupport worker = null;
+    synchronized (pool) {
+      while (pool.isEmpty() && poolCreated >= Math.max(1, Settings.JythonPoolSize)) {
+        try {
+          pool.wait();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return null;
+        }
+      }
+      if (pool.isEmpty()) {
+        poolCreated++;
+      } else {
+        worker = pool.removeFirst();
+      }
+    }
+    if (null == worker) {
+      worker = createWorker();
+      if (null == worker) {
+        synchronized (pool) {
+          poolCreated--;
+          pool.notifyAll();
+        }
+        return null;
+      }
+    }
+    worker.aborted = false;
+    worker.leasedBy = Thread.currentThread();
+    synchronized (pool) {
+      poolLeased.add(worker);
+    }
+    leased.set(worker);
+    ImagePath.useOwnPaths();
+    return worker;
+  }
+
+  /**
+   * returns a leased interpreter to the pool (nothing happens with the singleton)
+   */
+  public void giveBack() {
+    if (!pooled) {
+      return;
+    }
+    if (leased.get() == this) {
+      leased.remove();
+      ImagePath.useSharedPaths();
+    }
+    leasedBy = null;
+    boolean evicted = false;
+    synchronized (pool) {
+      poolLeased.remove(this);
+      if (poolCreated > Math.max(1, Settings.JythonPoolSize)) {
+        poolCreated--;
+        evicted = true;
+      } else {
+        pool.addFirst(this);
+      }
+      pool.notifyAll();
+    }
+    if (evicted) {
+      interpreterClose();
+    }
+  }
+
+  /**
+   * the scripts running on pooled interpreters stop with the next Python line
+   *
+   * @param runThread the thread, that leased the interpreter (null: all leased)
+   */
+  public static void abortPooled(Thread runThread) {
+    synchronized (pool) {
+      for (JythonSupport worker : poolLeased) {
+        if (null == runThread || worker.leasedBy == runThread) {
+          worker.aborted = true;
+        }
+      }
+    }
+  }
+
+  /**
+   * @return true if the script on this pooled interpreter should stop (always false for the singleton)
+   */
+  public boolean isAborted() {
+    return aborted;
+  }
+
+  /**
+   * closes the pooled interpreters, that are not leased
+   */
+  public static void closePool() {
+    List<JythonSupport> workers;
+    synchronized (pool) {
+      workers = new ArrayList<>(pool);
+      pool.clear();
+      poolCreated -= workers.size();
+    }
+    for (JythonSupport worker : workers) {
+      worker.interpreterClose();
+    }
+    Debug.log(lvl, "Jython: pool: %d interpreters closed", workers.size());
+  }
+
+  private static JythonSupport createWorker() {
+    JythonSupport singleton = get();
+    if (null == singleton.interpreter) {
+      return null;
+    }
+    long start = new Date().getTime();
+    JythonSupport worker;
+    try {
+      worker = new JythonSupport(new PythonInterpreter(null, new PySystemState()));
+    } catch (Exception ex) {
+      singleton.log(-1, "pool: new interpreter: %s", ex.getMessage());
+      return null;
+    }
+    JythonSupport previous = leased.get();
+    leased.set(worker);
+    try {
+      worker.interpreterPrepare();
+      for (String line : SCRIPT_HEADER) {
+        if (line.startsWith("import ") || line.startsWith("from ")) {
+          try {
+            worker.interpreterExecString(line);
+          } catch (Exception ex) {
+            worker.log(lvl, "pool: prepare: %s: %s", line, ex.getMessage());
+          }
+        }
+      }
+    } catch (Exception ex) {
+      worker.log(-1, "pool: prepare: %s", ex.getMessage());
+    } finally {
+      if (null == previous) {
+        leased.remove();
+      } else {
+        leased.set(previous);
+      }
+    }
+    worker.log(lvl, "pool: interpreter ready (%d msec)", new Date().getTime() - start);
+    return worker;
+  }
   //</editor-fold>
 
   //<editor-fold desc="05 Jython reflection">
@@ -320,6 +546,13 @@ public class JythonSupport implements IRunnerSupport {
   }
 
   public void interpreterExecFile(String script) {
+    if (Settings.JythonCodeCaching) {
+      PyCode pyCode = JythonCodeCache.get(new File(script));
+      if (null != pyCode) {
+        interpreter.exec(pyCode);
+        return;
+      }
+    }
     interpreter.execfile(script);
   }
 
@@ -11,6 +11,7 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.IntSupplier;
 
 import org.sikuli.basics.Debug;
@@ -42,7 +43,7 @@ public abstract class AbstractScriptRunner implements IScriptRunner {
 //    return TYPE;
 //  }
 
-  private boolean ready = false;
+  private volatile boolean ready = false;
 
   private boolean running = false;
 
@@ -165,6 +166,10 @@ public abstract class AbstractScriptRunner implements IScriptRunner {
     IScriptRunner.Options options = null != maybeOptions ? maybeOptions : new IScriptRunner.Options();
 
     return runSynchronized(options, () -> {
+      if (isConcurrent()) {
+        // the debug level is global: parallel runs would restore each other's level
+        return doRunScript(script, scriptArgs, options);
+      }
       int savedLevel = Debug.getDebugLevel();
       if (!Debug.isGlobalDebug()) {
         Debug.off();
@@ -266,7 +271,7 @@ public abstract class AbstractScriptRunner implements IScriptRunner {
   static ArrayList<String> codeAfter = null;
 
   public final boolean isRunning() {
-    return running;
+    return running || concurrentRuns.get() > 0;
   }
 
   public boolean isAbortSupported() {
@@ -274,6 +279,12 @@ public abstract class AbstractScriptRunner implements IScriptRunner {
   }
 
   public final void abort() {
+    if (isConcurrent()) {
+      if (concurrentRuns.get() > 0 && isAbortSupported()) {
+        doAbortConcurrent(null);
+      }
+      return;
+    }
     synchronized (WORKER_LOCK) {
       if (worker != null && running && isAbortSupported()) {
         aborted = true;
@@ -292,6 +303,18 @@ public abstract class AbstractScriptRunner implements IScriptRunner {
     worker.interrupt();
   }
 
+  /**
+   * Aborts the run on the given thread (timeout) or all runs (runThread null),
+   * if the runner runs scripts concurrently (see isConcurrent()).
+   *
+   * Should be overridden by such runners, the default only interrupts the given thread.
+   */
+  protected void doAbortConcurrent(Thread runThread) {
+    if (runThread != null) {
+      runThread.interrupt();
+    }
+  }
+
   @Override
   public final boolean isAborted() {
     synchronized (WORKER_LOCK) {
@@ -355,7 +378,50 @@ public abstract class AbstractScriptRunner implements IScriptRunner {
     return exitCode.getValue();
   }
 
+  /**
+   * Runners, that can run scripts in parallel (e.g. each with its own interpreter),
+   * run them on the calling thread without taking the class wide lock.
+   *
+   * @return true if runs should not be synchronized (default false)
+   */
+  protected boolean isConcurrent() {
+    return false;
+  }
+
+  private final AtomicInteger concurrentRuns = new AtomicInteger();
+
+  private int runConcurrent(IScriptRunner.Options options, IntSupplier block) {
+    if (!ready) {
+      init(null);
+    }
+    Thread runThread = Thread.currentThread();
+    ScheduledFuture<?> timeoutFuture = null;
+    if (options.getTimeout() > 0) {
+      final long timeout = options.getTimeout();
+      timeoutFuture = TIMEOUT_EXECUTOR.schedule(() -> {
+        Debug.info("%s script timed out after %d ms", getName(), timeout);
+        doAbortConcurrent(runThread);
+      }, timeout, TimeUnit.MILLISECONDS);
+    }
+    concurrentRuns.incrementAndGet();
+    try {
+      return block.getAsInt();
+    } catch (Exception e) {
+      // same as an uncaught exception on the worker thread with synchronized runs
+      Debug.error("%s: run failed: %s", getName(), e);
+      return 1;
+    } finally {
+      concurrentRuns.decrementAndGet();
+      if (timeoutFuture != null) {
+        timeoutFuture.cancel(false);
+      }
+    }
+  }
+
   private int runSynchronized(IScriptRunner.Options options, IntSupplier block) {
+    if (isConcurrent()) {
+      return runConcurrent(options, block);
+    }
     synchronized (AbstractScriptRunner.class) {
       running = true;
 
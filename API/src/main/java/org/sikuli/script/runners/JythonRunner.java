@@ -12,6 +12,7 @@ import org.sikuli.script.support.RunTime;
 import java.io.File;
 import java.io.PrintStream;
 import java.util.Arrays;
+import java.util.function.ToIntFunction;
 import java.util.regex.Matcher;
 
 /**
@@ -85,14 +86,7 @@ public class JythonRunner extends AbstractLocalFileScriptRunner {
       log(lvl, "starting initialization");
 
       jythonSupport = JythonSupport.get();
-      jythonSupport.getSysPath();
-      String fpAPILib = runTime.fSikulixLib.getAbsolutePath();
-      jythonSupport.putSysPath(fpAPILib, 0);
-      jythonSupport.setSysPath();
-      jythonSupport.addSitePackages();
-      jythonSupport.showSysPath();
-      jythonSupport.interpreterExecString("import sys");
-      jythonSupport.interpreterExecString("import org.sikuli.script.support.Runner as Runner");
+      jythonSupport.interpreterPrepare();
       String interpreterVersion = jythonSupport.interpreterEval("sys.version.split(\"(\")[0]\n").toString();
       if (interpreterVersion.isEmpty()) {
         interpreterVersion = "could not be evaluated";
@@ -100,16 +94,69 @@ public class JythonRunner extends AbstractLocalFileScriptRunner {
       Debug.setWithTimeElapsed();
       log(lvl, "ready: version %s", interpreterVersion);
       Debug.unsetWithTimeElapsed();
+      if (isConcurrent()) {
+        JythonSupport.startPool();
+      }
     }
   }
 
-  private void initAbort() {
-    jythonSupport.interpreterExecString("runner = Runner.getRunner(\"" + NAME + "\")\n"
-                                      + "def trace_calls_for_abort(frame, evt, arg):\n"
-                                      + "  if runner.isAborted():\n"
-                                      + "    raise RuntimeError(\"Aborted\")\n"
-                                      + "  return trace_calls_for_abort\n"
-                                      + "sys.settrace(trace_calls_for_abort)");
+  private void initAbort(JythonSupport jython) {
+    jython.interpreterGet().set("jython_support", jython);
+    jython.interpreterExecString("runner = Runner.getRunner(\"" + NAME + "\")\n"
+                               + "def trace_calls_for_abort(frame, evt, arg):\n"
+                               + "  if runner.isAborted() or jython_support.isAborted():\n"
+                               + "    raise RuntimeError(\"Aborted\")\n"
+                               + "  return trace_calls_for_abort\n"
+                               + "sys.settrace(trace_calls_for_abort)");
+  }
+
+  private boolean isAborted(JythonSupport jython) {
+    return isAborted() || jython.isAborted();
+  }
+
+  /**
+   * Scripts run in parallel on pooled interpreters (Settings.JythonPoolSize)
+   */
+  @Override
+  protected boolean isConcurrent() {
+    return JythonSupport.isPoolEnabled();
+  }
+
+  @Override
+  protected void doAbortConcurrent(Thread runThread) {
+    JythonSupport.abortPooled(runThread);
+  }
+
+  /**
+   * runs the block with the shared interpreter (class wide synchronized)
+   * or with a pooled interpreter leased for this run (output as given with the options or redirect())
+   */
+  private int withInterpreter(IScriptRunner.Options options, ToIntFunction<JythonSupport> block) {
+    if (!isConcurrent()) {
+      // Since we have a static interpreter, we have to synchronize class wide
+      synchronized (JythonRunner.class) {
+        initAbort(jythonSupport);
+        return block.applyAsInt(jythonSupport);
+      }
+    }
+    JythonSupport worker = JythonSupport.lease();
+    if (null == worker) {
+      log(-1, "no pooled interpreter available");
+      return 1;
+    }
+    try {
+      PrintStream stdout = options.getStdout();
+      PrintStream stderr = options.getStderr();
+      if (null == stdout || null == stderr) {
+        stdout = null == redirectedStdout ? System.out : redirectedStdout;
+        stderr = null == redirectedStderr ? System.err : redirectedStderr;
+      }
+      worker.interpreterRedirect(stdout, stderr);
+      initAbort(worker);
+      return block.applyAsInt(worker);
+    } finally {
+      worker.giveBack();
+    }
   }
 
   static JythonSupport jythonSupport = null;
@@ -120,6 +167,7 @@ public class JythonRunner extends AbstractLocalFileScriptRunner {
   @Override
   public void doClose() {
     jythonSupport.interpreterClose();
+    JythonSupport.closePool();
     redirected = false;
   }
   //</editor-fold>
@@ -127,12 +175,10 @@ public class JythonRunner extends AbstractLocalFileScriptRunner {
   //<editor-fold desc="10 run / eval">
   @Override
   protected int doEvalScript(String script, IScriptRunner.Options options) {
-    // Since we have a static interpreter, we have to synchronize class wide
-    synchronized (JythonRunner.class) {
-      initAbort();
-      jythonSupport.interpreterExecString(script);
+    return withInterpreter(options, jython -> {
+      jython.interpreterExecString(script);
       return 0;
-    }
+    });
   }
 
   /**
@@ -146,14 +192,11 @@ public class JythonRunner extends AbstractLocalFileScriptRunner {
   @Override
   protected int doRunScript(String scriptFile, String[] argv, IScriptRunner.Options options) {
 
-    // Since we have a static interpreter, we have to synchronize class wide
-    synchronized (JythonRunner.class) {
-      initAbort();
-
+    return withInterpreter(options, jython -> {
       File pyFile = new File(scriptFile);
 
-      jythonSupport.interpreterFillSysArgv(pyFile, argv);
-      jythonSupport.executeScriptHeader(codeBefore);
+      jython.interpreterFillSysArgv(pyFile, argv);
+      jython.executeScriptHeader(codeBefore);
 
       prepareFileLocation(pyFile, options);
 
@@ -161,12 +204,12 @@ public class JythonRunner extends AbstractLocalFileScriptRunner {
 
       try {
         if (scriptFile.endsWith("$py.class")) {
-          jythonSupport.interpreterExecCode(new File(scriptFile));
+          jython.interpreterExecCode(new File(scriptFile));
         } else {
-          jythonSupport.interpreterExecFile(pyFile.getAbsolutePath());
+          jython.interpreterExecFile(pyFile.getAbsolutePath());
         }
       } catch (Throwable scriptException) {
-        if(!isAborted()) {
+        if(!isAborted(jython)) {
           exitCode = 1;
           java.util.regex.Pattern p = java.util.regex.Pattern.compile("SystemExit: (-?[0-9]+)");
           String exception = scriptException.toString();
@@ -176,14 +219,14 @@ public class JythonRunner extends AbstractLocalFileScriptRunner {
             exitCode = Integer.parseInt(matcher.group(1));
             Debug.info("Exit code: " + exitCode);
           } else {
-            int errorExit = jythonSupport.findErrorSource(scriptException, pyFile.getAbsolutePath());
+            int errorExit = jython.findErrorSource(scriptException, pyFile.getAbsolutePath());
             if (null != options) {
               options.setErrorLine(errorExit);
             }
           }
         }
       } finally {
-        jythonSupport.interpreterCleanup();
+        jython.interpreterCleanup();
       }
 
       if (System.out.checkError()) {
@@ -192,24 +235,23 @@ public class JythonRunner extends AbstractLocalFileScriptRunner {
       }
 
       return exitCode;
-    }
+    });
   }
 
   @Override
   protected void doRunLines(String lines, IScriptRunner.Options options) {
-    // Since we have a static interpreter, we have to synchronize class wide
-    synchronized (JythonRunner.class) {
-      initAbort();
-      jythonSupport.executeScriptHeader(codeBefore);
+    withInterpreter(options, jython -> {
+      jython.executeScriptHeader(codeBefore);
 
       try {
-        jythonSupport.interpreterExecString(lines);
+        jython.interpreterExecString(lines);
       } catch (Exception ex) {
-        if(!isAborted()) {
+        if(!isAborted(jython)) {
           log(-1, "runPython: (%s) raised: %s", "\n" + lines, ex);
         }
       }
-    }
+      return 0;
+    });
   }
   //</editor-fold>
 
@@ -96,6 +96,14 @@ public class RobotRunner extends JythonRunner {
     return 0;
   }
 
+  /**
+   * robot runs always use the shared interpreter
+   */
+  @Override
+  protected boolean isConcurrent() {
+    return false;
+  }
+
   @Override
   public String getName() {
     return NAME;
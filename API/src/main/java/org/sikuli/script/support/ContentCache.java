@@ -0,0 +1,494 @@
+/*
+ * Copyright (c) 2010-2020, sikuli.org, sikulix.com - MIT license
+ */
+
+package org.sikuli.script.support;
+
+import org.sikuli.basics.Debug;
+import org.sikuli.basics.FileManager;
+import org.sikuli.basics.Settings;
+import org.sikuli.script.SikuliXception;
+
+import java.io.*;
+import java.net.HttpURLConnection;
+import java.net.JarURLConnection;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * INTERNAL: local persistent cache for the content of images loaded from http(s) and jar image paths.
+ * <pre>
+ * - content is stored once per content hash (SHA-256) in Settings.ContentCacheFolder
+ *   (default: SikulixStore/ContentCache in the SikuliX app data folder)
+ * - per URL the content hash and the validators (ETag, Last-Modified, jar file time) are stored
+ * - http: revalidated with a conditional GET, when older than Settings.ContentCacheMaxAge (seconds, default 60)
+ * - jar: revalidated against the modification time of the jar file
+ * - when the cached content exceeds Settings.ContentCacheMaxMB, the least recently used content
+ *   and the URL entries referring to it are deleted
+ * </pre>
+ */
+public class ContentCache {
+
+  private static String me = "ContentCache: ";
+  private static int lvl = 3;
+
+  private static void log(int level, String message, Object... args) {
+    Debug.logx(level, me + message, args);
+  }
+
+  private ContentCache() {
+  }
+
+  private static class Meta {
+    String hash = "";
+    String etag = "";
+    String lastModified = "";
+    long checked = 0;
+  }
+
+  private static final Map<String, Meta> metas = new ConcurrentHashMap<>();
+
+  private static class Folder {
+    final String setting; // Settings.ContentCacheFolder, the folder was made for
+    final File folder;
+
+    Folder(String setting, File folder) {
+      this.setting = setting;
+      this.folder = folder;
+    }
+  }
+
+  private static volatile Folder folder = null;
+
+  /**
+   * @return the cache folder (only created again, when Settings.ContentCacheFolder changed - no lock otherwise)
+   */
+  static File getFolder() {
+    Folder current = folder;
+    if (current != null && Objects.equals(current.setting, Settings.ContentCacheFolder)) {
+      return current.folder;
+    }
+    return changeFolder();
+  }
+
+  private static synchronized File changeFolder() {
+    String setting = Settings.ContentCacheFolder;
+    File cacheFolder;
+    if (setting != null) {
+      cacheFolder = new File(setting);
+    } else {
+      cacheFolder = new File(RunTime.get().fSikulixStore, "ContentCache");
+    }
+    if (folder == null || !cacheFolder.equals(folder.folder)) {
+      metas.clear();
+      contentBytes = null;
+    }
+    cacheFolder.mkdirs();
+    folder = new Folder(setting, cacheFolder);
+    return cacheFolder;
+  }
+
+  /**
+   * @param url image URL
+   * @return true if the content of this URL is kept in the cache (Settings.ContentCaching)
+   */
+  public static boolean isCacheable(URL url) {
+    if (!Settings.ContentCaching || url == null) {
+      return false;
+    }
+    String proto = url.getProtocol();
+    return "jar".equals(proto) || proto.startsWith("http");
+  }
+
+  /**
+   * an image URL on an http image path, whose content is cached and need not be revalidated
+   * (no HEAD request needed to know that it exists)
+   *
+   * @param base  the image path
+   * @param fName the relative image file name
+   * @return the image URL or null
+   */
+  public static URL findFresh(URL base, String fName) {
+    if (!Settings.ContentCaching || !base.getProtocol().startsWith("http")) {
+      return null;
+    }
+    URL url = makeURL(base, fName);
+    if (url != null) {
+      Meta meta = getMeta(url);
+      if (meta != null && isFresh(meta) && getContentFile(meta).exists()) {
+        return url;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * the URL of the content on the image path as used by FileManager.getURLForContentFromURL (not checked)
+   *
+   * @param base  http(s) or jar image path
+   * @param fName the relative image file name
+   * @return the URL or null if not valid
+   */
+  public static URL makeURL(URL base, String fName) {
+    if ("jar".equals(base.getProtocol())) {
+      return FileManager.makeURL(base, fName);
+    }
+    String sBase = base.toString();
+    if (!sBase.endsWith("/")) {
+      sBase += "/";
+    }
+    try {
+      return new URL(sBase + fName);
+    } catch (MalformedURLException e) {
+      return null;
+    }
+  }
+
+  /**
+   * the content from the cache, if still valid, otherwise loaded from the URL and stored in the cache.
+   * <br>if the URL cannot be reached, the cached content is used
+   *
+   * @param url an http(s) or jar URL
+   * @return the content
+   * @throws IOException if neither cached nor loadable
+   */
+  public static byte[] get(URL url) throws IOException {
+    Meta meta = getMeta(url);
+    File content = meta == null ? null : getContentFile(meta);
+    if (content != null && !content.exists()) {
+      content = null;
+    }
+    if (content != null && isFresh(meta)) {
+      return readContent(content);
+    }
+    try {
+      if ("jar".equals(url.getProtocol())) {
+        return getJar(url, meta, content);
+      }
+      return getHTTP(url, meta, content);
+    } catch (IOException e) {
+      if (content != null) {
+        log(lvl, "not reachable - using cached: %s (%s)", url, e.getMessage());
+        return readContent(content);
+      }
+      throw e;
+    }
+  }
+
+  private static byte[] getHTTP(URL url, Meta meta, File content) throws IOException {
+    HttpURLConnection conn;
+    if (FileManager.getProxy() != null) {
+      conn = (HttpURLConnection) url.openConnection(FileManager.getProxy());
+    } else {
+      conn = (HttpURLConnection) url.openConnection();
+    }
+    try {
+      if (content != null) {
+        if (!meta.etag.isEmpty()) {
+          conn.setRequestProperty("If-None-Match", meta.etag);
+        }
+        if (!meta.lastModified.isEmpty()) {
+          conn.setRequestProperty("If-Modified-Since", meta.lastModified);
+        }
+      }
+      int response = conn.getResponseCode();
+      if (response == HttpURLConnection.HTTP_NOT_MODIFIED && content != null) {
+        meta.checked = new Date().getTime();
+        putMeta(url, meta);
+        log(lvl + 1, "not modified: %s", url);
+        return readContent(content);
+      }
+      if (response != HttpURLConnection.HTTP_OK) {
+        throw new IOException("HTTP " + response);
+      }
+      byte[] bytes;
+      try (InputStream inputStream = conn.getInputStream()) {
+        bytes = inputStream.readAllBytes();
+      }
+      Meta newMeta = new Meta();
+      newMeta.etag = Optional.ofNullable(conn.getHeaderField("ETag")).orElse("");
+      newMeta.lastModified = Optional.ofNullable(conn.getHeaderField("Last-Modified")).orElse("");
+      store(url, newMeta, bytes);
+      return bytes;
+    } finally {
+      conn.disconnect();
+    }
+  }
+
+  private static byte[] getJar(URL url, Meta meta, File content) throws IOException {
+    URLConnection conn = url.openConnection();
+    String jarTime = "";
+    if (conn instanceof JarURLConnection) {
+      URL jarURL = ((JarURLConnection) conn).getJarFileURL();
+      if ("file".equals(jarURL.getProtocol())) {
+        File jarFile = new File(jarURL.getPath());
+        jarTime = jarFile.lastModified() + ":" + jarFile.length();
+      }
+    }
+    if (content != null && !jarTime.isEmpty() && jarTime.equals(meta.lastModified)) {
+      meta.checked = new Date().getTime();
+      putMeta(url, meta);
+      return readContent(content);
+    }
+    byte[] bytes;
+    try (InputStream inputStream = conn.getInputStream()) {
+      bytes = inputStream.readAllBytes();
+    }
+    Meta newMeta = new Meta();
+    newMeta.lastModified = jarTime;
+    store(url, newMeta, bytes);
+    return bytes;
+  }
+
+  /**
+   * loads the content of the given URLs into the cache in parallel (e.g. a complete image set at startup)
+   *
+   * @param urls http(s) or jar URLs
+   * @return the number of URLs, whose content is now cached
+   */
+  public static int prefetch(List<URL> urls) {
+    if (urls.isEmpty() || !Settings.ContentCaching) {
+      return 0;
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(Math.min(8, urls.size()), runnable -> {
+      Thread thread = new Thread(runnable, "SikuliX-ContentPrefetch");
+      thread.setDaemon(true);
+      return thread;
+    });
+    List<Future<Boolean>> results = new ArrayList<>();
+    for (URL url : urls) {
+      results.add(executor.submit(() -> {
+        try {
+          get(url);
+          return true;
+        } catch (IOException e) {
+          log(lvl, "prefetch: %s (%s)", url, e.getMessage());
+          return false;
+        }
+      }));
+    }
+    int count = 0;
+    try {
+      for (Future<Boolean> result : results) {
+        if (result.get()) {
+          count++;
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      log(-1, "prefetch: %s", e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+    log(lvl, "prefetch: %d of %d cached", count, urls.size());
+    return count;
+  }
+
+  /**
+   * deletes all cached content
+   */
+  public static synchronized void clear() {
+    File[] files = getFolder().listFiles();
+    if (files != null) {
+      for (File file : files) {
+        file.delete();
+      }
+    }
+    metas.clear();
+    contentBytes = null;
+  }
+
+  //<editor-fold desc="store">
+  private static boolean isFresh(Meta meta) {
+    return new Date().getTime() - meta.checked < Settings.ContentCacheMaxAge * 1000;
+  }
+
+  private static File getContentFile(Meta meta) {
+    return new File(getFolder(), meta.hash + ".content");
+  }
+
+  private static File getMetaFile(URL url) {
+    return new File(getFolder(), hash(url.toString().getBytes()) + ".meta");
+  }
+
+  private static Meta getMeta(URL url) {
+    Meta meta = metas.get(url.toString());
+    if (meta != null) {
+      return meta;
+    }
+    File metaFile = getMetaFile(url);
+    if (!metaFile.exists()) {
+      return null;
+    }
+    Properties properties = new Properties();
+    try (InputStream inputStream = new FileInputStream(metaFile)) {
+      properties.load(inputStream);
+      meta = new Meta();
+      meta.hash = properties.getProperty("hash", "");
+      meta.etag = properties.getProperty("etag", "");
+      meta.lastModified = properties.getProperty("lastModified", "");
+      meta.checked = Long.parseLong(properties.getProperty("checked", "0"));
+    } catch (IOException | NumberFormatException e) {
+      return null;
+    }
+    if (meta.hash.isEmpty()) {
+      return null;
+    }
+    metas.put(url.toString(), meta);
+    return meta;
+  }
+
+  private static void putMeta(URL url, Meta meta) {
+    metas.put(url.toString(), meta);
+    Properties properties = new Properties();
+    properties.setProperty("url", url.toString());
+    properties.setProperty("hash", meta.hash);
+    properties.setProperty("etag", meta.etag);
+    properties.setProperty("lastModified", meta.lastModified);
+    properties.setProperty("checked", "" + meta.checked);
+    File metaFile = getMetaFile(url);
+    try (OutputStream outputStream = new FileOutputStream(metaFile)) {
+      properties.store(outputStream, null);
+    } catch (IOException e) {
+      log(-1, "not stored: %s (%s)", metaFile, e.getMessage());
+    }
+  }
+
+  private static void store(URL url, Meta meta, byte[] bytes) {
+    meta.hash = hash(bytes);
+    meta.checked = new Date().getTime();
+    File content = getContentFile(meta);
+    if (!content.exists()) {
+      try {
+        getFolder().mkdirs(); // might have been deleted meanwhile
+        File temp = File.createTempFile("content", ".tmp", getFolder());
+        Files.write(temp.toPath(), bytes);
+        Files.move(temp.toPath(), content.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } catch (IOException e) {
+        log(-1, "not stored: %s (%s)", url, e.getMessage());
+        return;
+      }
+      log(lvl + 1, "stored: %s (%d bytes)", url, bytes.length);
+    }
+    putMeta(url, meta);
+    addToIndex(meta.hash, content.length(), getMetaFile(url).getName());
+    evict(content);
+  }
+
+  private static byte[] readContent(File content) throws IOException {
+    byte[] bytes = Files.readAllBytes(content.toPath());
+    content.setLastModified(new Date().getTime()); // least recently used is evicted first
+    return bytes;
+  }
+
+  private static Map<String, Long> contentBytes = null; // content hash -> size (null: not yet read)
+  private static Map<String, String> metaHashes = null; // meta file name -> content hash
+  private static long totalBytes = 0;
+
+  /**
+   * the folder is read once (size of the content files, content referred to by the meta files),
+   * later stores only update the running total
+   */
+  private static synchronized void readIndex() {
+    if (contentBytes != null) {
+      return;
+    }
+    contentBytes = new HashMap<>();
+    metaHashes = new HashMap<>();
+    totalBytes = 0;
+    File[] files = getFolder().listFiles();
+    if (files == null) {
+      return;
+    }
+    for (File file : files) {
+      String name = file.getName();
+      if (name.endsWith(".content")) {
+        contentBytes.put(name.substring(0, name.length() - ".content".length()), file.length());
+        totalBytes += file.length();
+      } else if (name.endsWith(".meta")) {
+        Properties properties = new Properties();
+        try (InputStream inputStream = new FileInputStream(file)) {
+          properties.load(inputStream);
+          metaHashes.put(name, properties.getProperty("hash", ""));
+        } catch (IOException e) {
+          metaHashes.put(name, "");
+        }
+      }
+    }
+  }
+
+  private static synchronized void addToIndex(String hash, long length, String metaName) {
+    readIndex();
+    if (!contentBytes.containsKey(hash)) {
+      contentBytes.put(hash, length);
+      totalBytes += length;
+    }
+    metaHashes.put(metaName, hash);
+  }
+
+  private static synchronized void evict(File keep) {
+    long maxBytes = Math.max(0, Settings.ContentCacheMaxMB) * 1024L * 1024L;
+    if (maxBytes == 0) {
+      return;
+    }
+    readIndex();
+    if (totalBytes <= maxBytes) {
+      return;
+    }
+    long targetBytes = maxBytes - maxBytes / 10; // some room, so not every following store has to evict
+    List<File> contents = new ArrayList<>();
+    for (String hash : contentBytes.keySet()) {
+      contents.add(new File(getFolder(), hash + ".content"));
+    }
+    contents.sort(Comparator.comparingLong(File::lastModified));
+    Set<String> evicted = new HashSet<>();
+    for (File content : contents) {
+      if (totalBytes <= targetBytes) {
+        break;
+      }
+      if (content.equals(keep)) {
+        continue;
+      }
+      if (content.delete() || !content.exists()) {
+        String name = content.getName();
+        String hash = name.substring(0, name.length() - ".content".length());
+        totalBytes -= contentBytes.remove(hash);
+        evicted.add(hash);
+        log(lvl + 1, "evicted: %s", name);
+      }
+    }
+    if (evicted.isEmpty()) {
+      return;
+    }
+    for (Iterator<Map.Entry<String, String>> entries = metaHashes.entrySet().iterator(); entries.hasNext(); ) {
+      Map.Entry<String, String> entry = entries.next();
+      if (evicted.contains(entry.getValue())) {
+        new File(getFolder(), entry.getKey()).delete();
+        entries.remove();
+      }
+    }
+    metas.values().removeIf(meta -> evicted.contains(meta.hash));
+  }
+
+  private static String hash(byte[] bytes) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      StringBuilder hex = new StringBuilder();
+      for (byte b : digest.digest(bytes)) {
+        hex.append(String.format("%02x", b));
+      }
+      return hex.toString();
+    } catch (NoSuchAlgorithmException e) {
+      throw new SikuliXception(me + "SHA-256 not available");
+    }
+  }
+  //</editor-fold>
+}
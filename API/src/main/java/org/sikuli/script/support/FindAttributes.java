@@ -14,7 +14,10 @@ import org.sikuli.script.Match;
 import org.sikuli.script.Pattern;
 
 import java.awt.*;
+import java.net.URL;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class FindAttributes {
 
@@ -48,7 +51,27 @@ public class FindAttributes {
     return mask;
   }
 
+  private double scale = 1;
+
+  /**
+   * @return the resize factor of a multi-scale search (1 otherwise)
+   */
+  public double scale() {
+    return scale;
+  }
+
   public FindAttributes(Object searchTarget) {
+    this(searchTarget, 0);
+  }
+
+  /**
+   * for a multi-scale search: the target is resized with the given factor
+   * (replacing Pattern.resize and Settings.AlwaysResize)
+   *
+   * @param searchTarget Pattern, String or Image
+   * @param scale        resize factor (0: no multi-scale search)
+   */
+  public FindAttributes(Object searchTarget, double scale) {
     if (searchTarget instanceof Pattern) {
       Pattern pattern = (Pattern) searchTarget;
       originalTarget = pattern.getImage();
@@ -57,68 +80,193 @@ public class FindAttributes {
       target.offset(pattern.getTargetOffset());
       target.resize(pattern.getResize());
       target.waitAfter(pattern.waitAfter());
-      target.mask(pattern.getMask());
+      if (pattern.hasMask()) {
+        target.mask(pattern.getMask());
+      }
     } else {
       target = new Image(searchTarget);
       originalTarget = target;
     }
+    if (scale > 0) {
+      this.scale = scale;
+      target.resize((float) scale);
+    }
     what = target.getContent();
-    if (target.hasURL()) {
-      what = possibleImageResizeOrCallback(target, what);
+    String key = Compiled.key(target, scale > 0);
+    Compiled compiled = Compiled.get(key, what, target);
+    if (compiled == null) {
+      compiled = new Compiled(target, what, scale > 0);
+      Compiled.put(key, compiled);
     }
-    if (target.isMasked()) {
-      List<Mat> mats = SXOpenCV.extractMask(what, false);
-      what = mats.get(0);
-      mask = mats.get(1);
-    } else {
-      if (what.channels() == 4) {
-        List<Mat> mats = SXOpenCV.extractMask(what, true);
-        what = mats.get(0);
-        mask = mats.get(1);
+    what = compiled.what;
+    mask = compiled.mask;
+    gray = compiled.gray;
+    target.stdDev(compiled.stdDev);
+    target.plain(compiled.plain);
+    target.mean(compiled.mean);
+    target.black(compiled.black);
+    if (compiled.meanColor != null) {
+      target.white(compiled.white);
+      target.meanColor(compiled.meanColor);
+    }
+  }
+
+  //<editor-fold desc="compiled templates">
+  /**
+   * the prepared search content of an image (resized, mask extracted) with its statistics.
+   * <br>cached per image URL, resize factor and mask, as long as the image content does not change
+   * (see {@link #forget(URL)})
+   */
+  private static class Compiled {
+    final Mat source;
+    final Mat maskSource;
+    final URL url;
+    final URL maskUrl;
+    Mat what;
+    Mat mask = new Mat();
+    boolean gray = false;
+    double stdDev;
+    boolean plain;
+    double mean;
+    boolean black;
+    boolean white = false;
+    Color meanColor = null;
+
+    private static final Map<String, Compiled> compiled = new ConcurrentHashMap<>();
+
+    /**
+     * @return null if the prepared content cannot be reused (no url, image callback, no image caching)
+     */
+    static String key(Image target, boolean scaled) {
+      if (!Settings.ImageCaching || Settings.ImageCallback != null || !target.hasURL()) {
+        return null;
       }
+      String maskKey = "";
       if (target.hasMask()) {
-        mask = possibleImageResizeMask(target, what);
+        if (!target.getMask().hasURL()) {
+          return null;
+        }
+        maskKey = target.getMask().url().toString();
       }
+      double factor = resizeFactor(target, scaled);
+      return String.format("%s|%s|%s|%s", target.url(), factor, target.isMasked(), maskKey);
     }
-    if (what.channels() == 1) {
-      gray = true;
+
+    static Compiled get(String key, Mat source, Image target) {
+      if (key == null) {
+        return null;
+      }
+      Compiled item = compiled.get(key);
+      if (item == null || item.source != source
+          || (target.hasMask() && item.maskSource != target.getMask().getContent())) {
+        return null;
+      }
+      return item;
     }
-    Mat finalContent = new Mat();
-    if (mask.empty()) {
-      finalContent = what;
-    } else {
-      Core.multiply(what, mask, finalContent);
+
+    static void put(String key, Compiled item) {
+      if (key != null) {
+        compiled.put(key, item);
+      }
     }
 
-    MatOfDouble pMean = new MatOfDouble();
-    MatOfDouble pStdDev = new MatOfDouble();
-    Core.meanStdDev(finalContent, pMean, pStdDev);
+    static void forget(URL url) {
+      compiled.values().removeIf(item -> url.equals(item.url) || url.equals(item.maskUrl));
+    }
+
+    static void reset() {
+      compiled.clear();
+    }
+
+    Compiled(Image target, Mat content, boolean scaled) {
+      source = content;
+      url = target.url();
+      what = content;
+      if (target.hasURL() || scaled) {
+        what = possibleImageResizeOrCallback(target, what, scaled);
+      }
+      Mat maskContent = null;
+      URL maskURL = null;
+      if (target.isMasked()) {
+        List<Mat> mats = SXOpenCV.extractMask(what, false);
+        what = mats.get(0);
+        mask = mats.get(1);
+      } else {
+        if (what.channels() == 4) {
+          List<Mat> mats = SXOpenCV.extractMask(what, true);
+          what = mats.get(0);
+          mask = mats.get(1);
+        }
+        if (target.hasMask()) {
+          maskContent = target.getMask().getContent();
+          maskURL = target.getMask().url();
+          mask = possibleImageResizeMask(maskContent, what);
+        }
+      }
+      maskSource = maskContent;
+      maskUrl = maskURL;
+      if (what.channels() == 1) {
+        gray = true;
+      }
+      Mat finalContent = new Mat();
+      if (mask.empty()) {
+        finalContent = what;
+      } else {
+        Core.multiply(what, mask, finalContent);
+      }
 
-    double sum = 0.0;
-    double[] arr = pStdDev.toArray();
-    for (int i = 0; i < arr.length; i++) {
-      sum += arr[i];
+      MatOfDouble pMean = new MatOfDouble();
+      MatOfDouble pStdDev = new MatOfDouble();
+      Core.meanStdDev(finalContent, pMean, pStdDev);
+
+      double sum = 0.0;
+      double[] arr = pStdDev.toArray();
+      for (int i = 0; i < arr.length; i++) {
+        sum += arr[i];
+      }
+      stdDev = sum;
+      plain = sum < SXOpenCV.MIN_THRESHHOLD;
+
+      sum = 0.0;
+      arr = pMean.toArray();
+      int[] cvMeanColor = new int[arr.length];
+      for (int i = 0; i < arr.length; i++) {
+        cvMeanColor[i] = (int) arr[i];
+        sum += arr[i];
+      }
+      mean = sum;
+      black = sum < SXOpenCV.MIN_THRESHHOLD && plain;
+
+      if (cvMeanColor.length > 1) {
+        white = SXOpenCV.isColorEqual(cvMeanColor, Color.WHITE);
+        meanColor = new Color(cvMeanColor[2], cvMeanColor[1], cvMeanColor[0]);
+      }
     }
-    target.stdDev(sum);
-    target.plain(sum < SXOpenCV.MIN_THRESHHOLD);
-
-    sum = 0.0;
-    arr = pMean.toArray();
-    int[] cvMeanColor = new int[arr.length];
-    for (int i = 0; i < arr.length; i++) {
-      cvMeanColor[i] = (int) arr[i];
-      sum += arr[i];
+  }
+
+  /**
+   * INTERNAL: the prepared content of this image (or of patterns with this image or mask) is no longer valid
+   * (image reloaded or removed from the image cache)
+   *
+   * @param url the image URL (null: forget all)
+   */
+  public static void forget(URL url) {
+    if (url == null) {
+      Compiled.reset();
+    } else {
+      Compiled.forget(url);
     }
-    target.mean(sum);
-    target.black(sum < SXOpenCV.MIN_THRESHHOLD && target.plain());
+  }
+  //</editor-fold>
 
-    if (cvMeanColor.length > 1) {
-      target.white(SXOpenCV.isColorEqual(cvMeanColor, Color.WHITE));
-      target.meanColor(new Color(cvMeanColor[2], cvMeanColor[1], cvMeanColor[0]));
+  private static double resizeFactor(Image image, boolean scaled) {
+    if (scaled) {
+      return image.resize();
     }
+    return image.resize() == 1 ? Settings.AlwaysResize : image.resize();
   }
 
-  private Mat possibleImageResizeOrCallback(Image image, Mat what) {
+  private static Mat possibleImageResizeOrCallback(Image image, Mat what, boolean scaled) {
     Mat originalContent = what;
     if (Settings.ImageCallback != null) {
       Mat contentResized = SXOpenCV.makeMat(Settings.ImageCallback.callback(image), false);
@@ -126,7 +274,7 @@ public class FindAttributes {
         return contentResized;
       }
     } else {
-      double factor = image.resize() == 1 ? Settings.AlwaysResize : image.resize();
+      double factor = resizeFactor(image, scaled);
       if (factor > 0.1 && factor != 1) {
         return SXOpenCV.cvResize(originalContent.clone(), factor, Image.Interpolation.CUBIC);
       }
@@ -134,8 +282,7 @@ public class FindAttributes {
     return originalContent;
   }
 
-  private Mat possibleImageResizeMask(Image image, Mat what) {
-    Mat mask = image.getMask().getContent();
+  private static Mat possibleImageResizeMask(Mat mask, Mat what) {
     double factor = mask.width() / what.width();
     if (factor > 0.1 && factor != 1) {
       mask = SXOpenCV.cvResize(mask.clone(), factor, Image.Interpolation.CUBIC);
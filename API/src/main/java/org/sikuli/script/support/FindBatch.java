@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2010-2020, sikuli.org, sikulix.com - MIT license
+ */
+
+package org.sikuli.script.support;
+
+import org.opencv.core.Mat;
+import org.sikuli.basics.Debug;
+import org.sikuli.script.Match;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * INTERNAL: searches many targets in the same base in one pass (findAny/findBest)
+ * <pre>
+ * - the base is converted (gray, inverted for plain black targets) only once per variant
+ * - targets with the same size and type are matched one after the other on the same find thread,
+ *   sharing one result Mat (the groups run in parallel)
+ * - only the best match per target is kept
+ * </pre>
+ * the scores are the same as with a single find of each target (SXOpenCV.findMatch)
+ */
+public class FindBatch {
+
+  private static String me = "FindBatch: ";
+
+  private final Mat where;
+  private final Map<String, Mat> prepared = new ConcurrentHashMap<>();
+  private String metricsRegion = null;
+
+  /**
+   * @param where the base (BGR or gray, as used with SXOpenCV.findMatch)
+   */
+  public FindBatch(Mat where) {
+    this.where = where;
+  }
+
+  /**
+   * the match times are recorded with FindMetrics for the given region
+   *
+   * @param region see FindMetrics.whereKey
+   * @return this
+   */
+  public FindBatch metrics(Object region) {
+    if (FindMetrics.isEnabled()) {
+      metricsRegion = FindMetrics.whereKey(region);
+    }
+    return this;
+  }
+
+  private Mat where(boolean gray, boolean inverted) {
+    return prepared.computeIfAbsent(gray + "|" + inverted,
+        key -> SXOpenCV.prepareWhere(where, gray, inverted));
+  }
+
+  /**
+   * @param targets what to find (null entries are allowed)
+   * @return the best match per target (relative to the base) or null (not found, no valid target),
+   * in the order of the targets
+   */
+  public List<Match> findBest(List<FindAttributes> targets) {
+    Match[] matches = new Match[targets.size()];
+    Map<String, List<Integer>> groups = new LinkedHashMap<>();
+    for (int n = 0; n < targets.size(); n++) {
+      FindAttributes findAttributes = targets.get(n);
+      if (findAttributes == null) {
+        continue;
+      }
+      Mat what = findAttributes.what();
+      if (what == null || what.empty() || what.cols() > where.cols() || what.rows() > where.rows()) {
+        continue;
+      }
+      String key = String.format("%dx%d|%d", what.cols(), what.rows(), what.type());
+      groups.computeIfAbsent(key, k -> new ArrayList<>()).add(n);
+    }
+    List<Callable<Boolean>> tasks = new ArrayList<>();
+    for (List<Integer> group : groups.values()) {
+      tasks.add(() -> {
+        Mat result = new Mat();
+        for (int n : group) {
+          FindAttributes findAttributes = targets.get(n);
+          long start = new Date().getTime();
+          try {
+            SXOpenCV.matchPrepared(where(findAttributes.gray(), SXOpenCV.isInverted(findAttributes)),
+                findAttributes, result);
+            matches[n] = SXOpenCV.bestMatch(result, findAttributes, false);
+          } catch (Exception e) {
+            Debug.error(me + "target %d: %s", n, e);
+          }
+          if (metricsRegion != null) {
+            FindMetrics.record(FindMetrics.Kind.MATCH, FindMetrics.patternKey(findAttributes.originalTarget()),
+                metricsRegion, new Date().getTime() - start);
+          }
+        }
+        return true;
+      });
+    }
+    Debug.log(3, me + "%d targets in %d groups", targets.size(), tasks.size());
+    FindExecutor.invokeAll(tasks);
+    return Arrays.asList(matches);
+  }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2010-2020, sikuli.org, sikulix.com - MIT license
+ */
+
+package org.sikuli.script.support;
+
+import org.sikuli.basics.Debug;
+import org.sikuli.script.ImagePath;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * INTERNAL: a shared, bounded pool of daemon threads (sized to the available cores)
+ * for find operations, that can run in parallel (e.g. findAny with many targets)
+ */
+public class FindExecutor {
+
+  private static String me = "FindExecutor: ";
+
+  private static ExecutorService executor = null;
+
+  private static final AtomicInteger threadCount = new AtomicInteger(0);
+
+  private static class FindThread extends Thread {
+    FindThread(Runnable runnable) {
+      super(runnable, "SikuliX-Find-" + threadCount.incrementAndGet());
+      setDaemon(true);
+    }
+
+    @Override
+    public void run() {
+      ImagePath.useSharedPaths(); // not the paths of the thread, that happened to start the pool
+      super.run();
+    }
+  }
+
+  private FindExecutor() {
+  }
+
+  /**
+   * @return the number of find threads
+   */
+  public static int getThreads() {
+    return Math.max(2, Runtime.getRuntime().availableProcessors());
+  }
+
+  public static synchronized ExecutorService get() {
+    if (executor == null) {
+      int nThreads = getThreads();
+      executor = Executors.newFixedThreadPool(nThreads, FindThread::new);
+      Debug.log(3, me + "started with %d threads", nThreads);
+    }
+    return executor;
+  }
+
+  private static ScheduledExecutorService scheduler = null;
+
+  /**
+   * @return a single daemon thread, that only triggers delayed tasks (e.g. the next scan of an async wait)
+   */
+  public static synchronized ScheduledExecutorService getScheduler() {
+    if (scheduler == null) {
+      scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(() -> {
+          ImagePath.useSharedPaths();
+          runnable.run();
+        }, "SikuliX-FindScheduler");
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+    return scheduler;
+  }
+
+  /**
+   * runs the task on the find threads after the given delay
+   *
+   * @param task  the task
+   * @param delay milliseconds
+   * @return the scheduled trigger (cancel prevents the task from being run, if not yet triggered)
+   */
+  public static ScheduledFuture<?> schedule(Runnable task, long delay) {
+    return getScheduler().schedule(() -> get().execute(task), Math.max(0, delay), TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * @return true if the current thread is one of the find threads
+   */
+  public static boolean isFindThread() {
+    return Thread.currentThread() instanceof FindThread;
+  }
+
+  public static <T> Future<T> submit(Callable<T> task) {
+    return get().submit(task);
+  }
+
+  /**
+   * runs the tasks on the find threads and waits for all of them to complete.
+   * <br>tasks given from inside a find thread are run in sequence on the current thread,
+   * so nested parallel finds cannot exhaust the pool
+   *
+   * @param tasks the tasks (null entries are allowed)
+   * @param <T>   result type
+   * @return the results in the order of the tasks (null for null tasks or tasks that failed)
+   */
+  public static <T> List<T> invokeAll(List<Callable<T>> tasks) {
+    List<T> results = new ArrayList<>();
+    if (tasks.size() < 2 || isFindThread()) {
+      for (Callable<T> task : tasks) {
+        T result = null;
+        if (task != null) {
+          try {
+            result = task.call();
+          } catch (Exception e) {
+            Debug.error(me + "task failed: %s", e);
+          }
+        }
+        results.add(result);
+      }
+      return results;
+    }
+    List<Future<T>> futures = new ArrayList<>();
+    for (Callable<T> task : tasks) {
+      futures.add(task == null ? null : submit(task));
+    }
+    boolean interrupted = false;
+    for (Future<T> future : futures) {
+      T result = null;
+      if (future != null) {
+        if (interrupted) {
+          future.cancel(true);
+        } else {
+          try {
+            result = future.get();
+          } catch (InterruptedException e) {
+            interrupted = true;
+            future.cancel(true);
+          } catch (ExecutionException e) {
+            Debug.error(me + "task failed: %s", e.getCause());
+          }
+        }
+      }
+      results.add(result);
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+    return results;
+  }
+}
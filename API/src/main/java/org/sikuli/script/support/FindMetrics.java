@@ -0,0 +1,466 @@
+/*
+ * Copyright (c) 2010-2020, sikuli.org, sikulix.com - MIT license
+ */
+
+package org.sikuli.script.support;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.sikuli.basics.Debug;
+import org.sikuli.basics.Settings;
+import org.sikuli.script.Element;
+import org.sikuli.script.Region;
+
+import java.awt.Rectangle;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * INTERNAL: aggregated timings of find operations per pattern and per region
+ * (collected only if Settings.FindMetrics is true)
+ * <pre>
+ * capture:   screen capture (msec, per region)
+ * prepare:   preparing the search target - FindAttributes (msec)
+ * match:     one search in the captured content (msec)
+ * ocr:       one text recognition (msec, per region)
+ * waitScans: number of searches until a find/wait/exists ended
+ * lastSeen:  hits and misses of the last seen check (per pattern)
+ * </pre>
+ * available as snapshot (Map), as JSON (toJSON(), dump(file), SikulixServer GET /metrics)
+ * and as JFR events (org.sikuli.FindMetrics), if the Java runtime supports Flight Recorder
+ * (the event is defined at runtime, so SikuliX still builds and runs on Java 9/10)
+ * <br>at most MAX_KEYS patterns and regions are kept per kind, further ones are recorded as (other)
+ */
+public class FindMetrics {
+
+  private static String me = "FindMetrics: ";
+
+  public enum Kind {
+    CAPTURE, PREPARE, MATCH, OCR, WAIT_SCANS;
+
+    String key() {
+      return WAIT_SCANS.equals(this) ? "waitScans" : name().toLowerCase();
+    }
+  }
+
+  private FindMetrics() {
+  }
+
+  //<editor-fold desc="01 histogram">
+
+  /**
+   * counts, sum, min, max and log2 buckets (0, 1, 2-3, 4-7, ... ) of recorded values
+   */
+  public static class Histogram {
+
+    private static final int BUCKETS = 40;
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+    void record(long value) {
+      value = Math.max(0, value);
+      count.increment();
+      sum.add(value);
+      min.accumulateAndGet(value, Math::min);
+      max.accumulateAndGet(value, Math::max);
+      buckets.incrementAndGet(Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(value)));
+    }
+
+    public long getCount() {
+      return count.sum();
+    }
+
+    public long getSum() {
+      return sum.sum();
+    }
+
+    public long getMin() {
+      return getCount() == 0 ? 0 : min.get();
+    }
+
+    public long getMax() {
+      return getCount() == 0 ? 0 : max.get();
+    }
+
+    public double getMean() {
+      long n = getCount();
+      return n == 0 ? 0 : (double) getSum() / n;
+    }
+
+    /**
+     * @param percent 0 ... 100
+     * @return the upper bound of the bucket containing the percentile (not above max)
+     */
+    public long getPercentile(double percent) {
+      long n = getCount();
+      if (n == 0) {
+        return 0;
+      }
+      long rank = (long) Math.ceil(n * Math.max(0, Math.min(100, percent)) / 100);
+      long seen = 0;
+      for (int i = 0; i < BUCKETS; i++) {
+        seen += buckets.get(i);
+        if (seen >= Math.max(1, rank)) {
+          long upper = i == 0 ? 0 : (1L << i) - 1;
+          return Math.min(upper, getMax());
+        }
+      }
+      return getMax();
+    }
+
+    Map<String, Object> toMap() {
+      Map<String, Object> map = new LinkedHashMap<>();
+      map.put("count", getCount());
+      map.put("sum", getSum());
+      map.put("min", getMin());
+      map.put("max", getMax());
+      map.put("mean", Math.round(getMean() * 100) / 100.0);
+      map.put("p50", getPercentile(50));
+      map.put("p90", getPercentile(90));
+      map.put("p99", getPercentile(99));
+      return map;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("n=%d mean=%.1f min=%d max=%d p90=%d",
+          getCount(), getMean(), getMin(), getMax(), getPercentile(90));
+    }
+  }
+  //</editor-fold>
+
+  //<editor-fold desc="02 record">
+  private static final Map<Kind, Map<String, Histogram>> byPattern = new ConcurrentHashMap<>();
+  private static final Map<Kind, Map<String, Histogram>> byRegion = new ConcurrentHashMap<>();
+  private static final Map<String, LongAdder[]> lastSeen = new ConcurrentHashMap<>();
+  private static final LongAdder lastSeenHits = new LongAdder();
+  private static final LongAdder lastSeenMisses = new LongAdder();
+  private static volatile long since = new Date().getTime();
+
+  /**
+   * patterns or regions per kind (every distinct region would add histograms otherwise)
+   */
+  public static final int MAX_KEYS = 500;
+  public static final String OTHER = "(other)";
+
+  public static boolean isEnabled() {
+    return Settings.FindMetrics;
+  }
+
+  /**
+   * @param kind    what was measured
+   * @param pattern the pattern key (null: not pattern specific)
+   * @param region  the region key (null: not region specific)
+   * @param value   msec (count for WAIT_SCANS)
+   */
+  public static void record(Kind kind, String pattern, String region, long value) {
+    if (!isEnabled()) {
+      return;
+    }
+    if (pattern != null) {
+      get(byPattern, kind, pattern).record(value);
+    }
+    if (region != null) {
+      get(byRegion, kind, region).record(value);
+    }
+    if (isJFRAvailable()) {
+      emitEvent(kind.key(), pattern, region, value);
+    }
+  }
+
+  /**
+   * @param pattern the pattern key
+   * @param hit     true if found at the last seen place
+   */
+  public static void recordLastSeen(String pattern, boolean hit) {
+    if (!isEnabled()) {
+      return;
+    }
+    LongAdder[] counters = lastSeen.get(pattern);
+    if (counters == null) {
+      counters = lastSeen.computeIfAbsent(lastSeen.size() < MAX_KEYS ? pattern : OTHER,
+          p -> new LongAdder[]{new LongAdder(), new LongAdder()});
+    }
+    if (hit) {
+      counters[0].increment();
+      lastSeenHits.increment();
+    } else {
+      counters[1].increment();
+      lastSeenMisses.increment();
+    }
+    if (isJFRAvailable()) {
+      emitEvent(hit ? "lastSeenHit" : "lastSeenMiss", pattern, null, 1);
+    }
+  }
+
+  private static Histogram get(Map<Kind, Map<String, Histogram>> histograms, Kind kind, String key) {
+    Map<String, Histogram> byKey = histograms.computeIfAbsent(kind, k -> new ConcurrentHashMap<>());
+    Histogram histogram = byKey.get(key);
+    if (histogram == null) {
+      histogram = byKey.computeIfAbsent(byKey.size() < MAX_KEYS ? key : OTHER, k -> new Histogram());
+    }
+    return histogram;
+  }
+
+  /**
+   * @param target the image searched for
+   * @return the key for this pattern (the image file name, if any)
+   */
+  public static String patternKey(Element target) {
+    if (target == null) {
+      return "(none)";
+    }
+    if (target.hasURL()) {
+      URL url = target.url();
+      String path = url.getPath();
+      return path.substring(path.lastIndexOf("/") + 1);
+    }
+    String name = target.getName();
+    if (name != null && !name.isEmpty()) {
+      return name;
+    }
+    return String.format("image[%dx%d]", target.w, target.h);
+  }
+
+  /**
+   * @param rect a screen area
+   * @return the key for this region
+   */
+  public static String regionKey(Rectangle rect) {
+    return String.format("[%d,%d %dx%d]", rect.x, rect.y, rect.width, rect.height);
+  }
+
+  /**
+   * @param where where a find or OCR is done (Region, Image, ...)
+   * @return the region key for regions, the pattern key for images, the class name otherwise
+   */
+  public static String whereKey(Object where) {
+    if (where instanceof Region) {
+      return regionKey(((Region) where).getRect());
+    }
+    if (where instanceof Element) {
+      return patternKey((Element) where);
+    }
+    return where == null ? "(none)" : where.getClass().getSimpleName();
+  }
+  //</editor-fold>
+
+  //<editor-fold desc="03 JFR event">
+  private static volatile Boolean jfrAvailable = null;
+  private static Object jfrFactory = null; // jdk.jfr.EventFactory
+  private static Method jfrNewEvent = null;
+  private static Method jfrIsEnabled = null;
+  private static Method jfrSet = null;
+  private static Method jfrCommit = null;
+
+  /**
+   * the event org.sikuli.FindMetrics (kind, pattern, region, value) is defined with jdk.jfr.EventFactory
+   * by reflection (jdk.jfr is not needed to build SikuliX)
+   */
+  private static boolean isJFRAvailable() {
+    Boolean available = jfrAvailable;
+    return available == null ? defineEvent() : available;
+  }
+
+  private static synchronized boolean defineEvent() {
+    if (jfrAvailable == null) {
+      try {
+        Class<?> cAnnotation = Class.forName("jdk.jfr.AnnotationElement");
+        Class<?> cValue = Class.forName("jdk.jfr.ValueDescriptor");
+        Class<?> cFactory = Class.forName("jdk.jfr.EventFactory");
+        Class<?> cEvent = Class.forName("jdk.jfr.Event");
+        Class<?> cLabel = Class.forName("jdk.jfr.Label");
+        Class<?> cDescription = Class.forName("jdk.jfr.Description");
+        Constructor<?> annotation = cAnnotation.getConstructor(Class.class, Object.class);
+        Constructor<?> field = cValue.getConstructor(Class.class, String.class, List.class);
+        List<Object> annotations = new ArrayList<>();
+        annotations.add(annotation.newInstance(Class.forName("jdk.jfr.Name"), "org.sikuli.FindMetrics"));
+        annotations.add(annotation.newInstance(cLabel, "SikuliX Find Metrics"));
+        annotations.add(annotation.newInstance(Class.forName("jdk.jfr.Category"), new String[]{"SikuliX"}));
+        annotations.add(annotation.newInstance(cDescription,
+            "capture, prepare, match, ocr and waitScans values and lastSeen hits/misses"));
+        annotations.add(annotation.newInstance(Class.forName("jdk.jfr.StackTrace"), false));
+        List<Object> fields = new ArrayList<>();
+        for (String name : new String[]{"kind", "pattern", "region"}) {
+          fields.add(field.newInstance(String.class, name,
+              Collections.singletonList(annotation.newInstance(cLabel, name.substring(0, 1).toUpperCase() + name.substring(1)))));
+        }
+        fields.add(field.newInstance(long.class, "value", Arrays.asList(
+            annotation.newInstance(cLabel, "Value"),
+            annotation.newInstance(cDescription, "msec (count for waitScans and lastSeen)"))));
+        jfrFactory = cFactory.getMethod("create", List.class, List.class).invoke(null, annotations, fields);
+        jfrNewEvent = cFactory.getMethod("newEvent");
+        jfrIsEnabled = cEvent.getMethod("isEnabled");
+        jfrSet = cEvent.getMethod("set", int.class, Object.class);
+        jfrCommit = cEvent.getMethod("commit");
+        jfrAvailable = true;
+      } catch (Exception | LinkageError e) {
+        Debug.log(3, me + "no JFR events (%s)", e);
+        jfrAvailable = false;
+      }
+    }
+    return jfrAvailable;
+  }
+
+  private static void emitEvent(String kind, String pattern, String region, long value) {
+    try {
+      Object event = jfrNewEvent.invoke(jfrFactory);
+      if ((Boolean) jfrIsEnabled.invoke(event)) {
+        jfrSet.invoke(event, 0, kind);
+        jfrSet.invoke(event, 1, pattern);
+        jfrSet.invoke(event, 2, region);
+        jfrSet.invoke(event, 3, value);
+        jfrCommit.invoke(event);
+      }
+    } catch (Exception e) {
+      jfrAvailable = false;
+      Debug.error(me + "JFR event: %s (no more events)", e);
+    }
+  }
+  //</editor-fold>
+
+  //<editor-fold desc="04 query">
+
+  /**
+   * @param kind    what was measured
+   * @param pattern the pattern key (see patternKey())
+   * @return the histogram or null if nothing recorded
+   */
+  public static Histogram getForPattern(Kind kind, String pattern) {
+    return byPattern.getOrDefault(kind, Collections.emptyMap()).get(pattern);
+  }
+
+  /**
+   * @param kind   what was measured
+   * @param region the region key (see regionKey())
+   * @return the histogram or null if nothing recorded
+   */
+  public static Histogram getForRegion(Kind kind, String region) {
+    return byRegion.getOrDefault(kind, Collections.emptyMap()).get(region);
+  }
+
+  public static long getLastSeenHits() {
+    return lastSeenHits.sum();
+  }
+
+  public static long getLastSeenMisses() {
+    return lastSeenMisses.sum();
+  }
+
+  /**
+   * @param kind what was measured
+   * @param n    number of patterns
+   * @return the patterns with the highest time sum for kind (slowest first)
+   */
+  public static List<String> getSlowestPatterns(Kind kind, int n) {
+    List<Map.Entry<String, Histogram>> entries =
+        new ArrayList<>(byPattern.getOrDefault(kind, Collections.emptyMap()).entrySet());
+    entries.sort((e1, e2) -> Long.compare(e2.getValue().getSum(), e1.getValue().getSum()));
+    List<String> slowest = new ArrayList<>();
+    for (Map.Entry<String, Histogram> entry : entries.subList(0, Math.min(n, entries.size()))) {
+      slowest.add(entry.getKey());
+    }
+    return slowest;
+  }
+
+  /**
+   * @return all recorded values as nested maps (patterns, regions, lastSeen)
+   */
+  public static Map<String, Object> snapshot() {
+    Map<String, Object> snapshot = new LinkedHashMap<>();
+    snapshot.put("enabled", isEnabled());
+    snapshot.put("since", since);
+    snapshot.put("taken", new Date().getTime());
+    snapshot.put("patterns", toMap(byPattern));
+    snapshot.put("regions", toMap(byRegion));
+    Map<String, Object> lastSeenMap = new LinkedHashMap<>();
+    lastSeenMap.put("hits", getLastSeenHits());
+    lastSeenMap.put("misses", getLastSeenMisses());
+    Map<String, Object> perPattern = new TreeMap<>();
+    for (Map.Entry<String, LongAdder[]> entry : lastSeen.entrySet()) {
+      Map<String, Object> counts = new LinkedHashMap<>();
+      counts.put("hits", entry.getValue()[0].sum());
+      counts.put("misses", entry.getValue()[1].sum());
+      perPattern.put(entry.getKey(), counts);
+    }
+    lastSeenMap.put("patterns", perPattern);
+    snapshot.put("lastSeen", lastSeenMap);
+    return snapshot;
+  }
+
+  private static Map<String, Object> toMap(Map<Kind, Map<String, Histogram>> histograms) {
+    Map<String, Object> byKey = new TreeMap<>();
+    for (Kind kind : Kind.values()) {
+      for (Map.Entry<String, Histogram> entry : histograms.getOrDefault(kind, Collections.emptyMap()).entrySet()) {
+        @SuppressWarnings("unchecked")
+        Map<String, Object> kinds = (Map<String, Object>) byKey.computeIfAbsent(entry.getKey(), k -> new LinkedHashMap<>());
+        kinds.put(kind.key(), entry.getValue().toMap());
+      }
+    }
+    return byKey;
+  }
+
+  private static ObjectMapper mapper = null;
+
+  private static synchronized ObjectMapper getMapper() {
+    if (mapper == null) {
+      mapper = new ObjectMapper();
+      mapper.enable(SerializationFeature.INDENT_OUTPUT);
+    }
+    return mapper;
+  }
+
+  /**
+   * @return the snapshot as JSON
+   */
+  public static String toJSON() {
+    try {
+      return getMapper().writeValueAsString(snapshot());
+    } catch (JsonProcessingException e) {
+      Debug.error(me + "toJSON: %s", e.getMessage());
+      return "{}";
+    }
+  }
+
+  /**
+   * writes the snapshot as JSON to the given file
+   *
+   * @param file the file
+   * @return success
+   */
+  public static boolean dump(File file) {
+    try {
+      getMapper().writeValue(file, snapshot());
+      return true;
+    } catch (IOException e) {
+      Debug.error(me + "dump: %s (%s)", file, e.getMessage());
+      return false;
+    }
+  }
+
+  /**
+   * removes all recorded values
+   */
+  public static void reset() {
+    byPattern.clear();
+    byRegion.clear();
+    lastSeen.clear();
+    lastSeenHits.reset();
+    lastSeenMisses.reset();
+    since = new Date().getTime();
+  }
+  //</editor-fold>
+}
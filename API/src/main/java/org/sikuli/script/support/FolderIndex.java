@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2010-2020, sikuli.org, sikulix.com - MIT license
+ */
+
+package org.sikuli.script.support;
+
+import org.sikuli.basics.Debug;
+import org.sikuli.basics.Settings;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * INTERNAL: in-memory index of the files in image folders (names and last modified),
+ * so the existence and freshness checks of images need no file system access.
+ * <br>a folder is listed on first use and listed again, after a change was reported by a WatchService
+ * (at the latest after WATCHED_MAX_AGE, in case an event got lost).
+ * <br>folders, that cannot be watched or are on a network file system (no events for remote changes),
+ * are listed again after Settings.ImageFolderPollInterval
+ */
+public class FolderIndex {
+
+  private static String me = "FolderIndex: ";
+  private static int lvl = 4;
+
+  private static final boolean caseInsensitive = !Settings.isLinux();
+
+  private static final long WATCHED_MAX_AGE = 60 * 1000;
+
+  private static final Map<String, Folder> folders = new ConcurrentHashMap<>();
+
+  private static class Folder {
+    final Set<String> names;
+    final Map<String, Long> lastModified = new ConcurrentHashMap<>();
+    final long listed;
+    final boolean watched;
+
+    Folder(File folder, boolean watched) {
+      Set<String> content = new HashSet<>();
+      String[] list = folder.list();
+      if (list != null) {
+        for (String name : list) {
+          content.add(key(name));
+        }
+      }
+      names = content;
+      listed = new Date().getTime();
+      this.watched = watched;
+    }
+
+    boolean isStale() {
+      long age = new Date().getTime() - listed;
+      return age > (watched ? WATCHED_MAX_AGE : Settings.ImageFolderPollInterval * 1000);
+    }
+  }
+
+  private FolderIndex() {
+  }
+
+  private static String key(String name) {
+    return caseInsensitive ? name.toLowerCase() : name;
+  }
+
+  private static Folder getFolder(File folder) {
+    String path = folder.getAbsolutePath();
+    Folder entry = folders.get(path);
+    if (entry == null || entry.isStale()) {
+      entry = new Folder(folder, entry == null ? watch(folder) : entry.watched);
+      folders.put(path, entry);
+      Debug.log(lvl, me + "listed: %s (%d entries)", path, entry.names.size());
+    }
+    return entry;
+  }
+
+  /**
+   * like File.exists() (from the index if Settings.ImageFolderIndex)
+   *
+   * @param file a file
+   * @return true if it exists
+   */
+  public static boolean exists(File file) {
+    File folder = file.getAbsoluteFile().getParentFile();
+    if (!Settings.ImageFolderIndex || folder == null) {
+      return file.exists();
+    }
+    return getFolder(folder).names.contains(key(file.getName()));
+  }
+
+  /**
+   * like File.lastModified() (from the index if Settings.ImageFolderIndex)
+   *
+   * @param file a file
+   * @return the last modified time or 0 if the file does not exist
+   */
+  public static long lastModified(File file) {
+    File folder = file.getAbsoluteFile().getParentFile();
+    if (!Settings.ImageFolderIndex || folder == null) {
+      return file.lastModified();
+    }
+    Folder entry = getFolder(folder);
+    String name = key(file.getName());
+    if (!entry.names.contains(name)) {
+      return 0;
+    }
+    return entry.lastModified.computeIfAbsent(name, n -> file.lastModified());
+  }
+
+  private static final Map<String, Long> missingChecked = new ConcurrentHashMap<>();
+
+  /**
+   * a file not found with the index might have been created just now (the index not yet knows it):
+   * it should be checked directly in the file system at most once per Settings.ImageFolderPollInterval
+   *
+   * @param name the file name (as searched in the folders)
+   * @return true if it should be checked now
+   */
+  public static boolean shouldCheckMissing(String name) {
+    long now = new Date().getTime();
+    Long checked = missingChecked.get(name);
+    if (checked != null && now - checked <= Settings.ImageFolderPollInterval * 1000) {
+      return false;
+    }
+    if (missingChecked.size() > 1000) {
+      missingChecked.clear();
+    }
+    missingChecked.put(name, now);
+    return true;
+  }
+
+  /**
+   * the folder's content is listed again on next use
+   *
+   * @param folder the folder (null: all folders)
+   */
+  public static void invalidate(File folder) {
+    if (folder == null) {
+      folders.clear();
+      missingChecked.clear();
+    } else {
+      folders.remove(folder.getAbsolutePath());
+    }
+  }
+
+  //<editor-fold desc="watch">
+  private static WatchService watchService = null;
+  private static boolean watchFailed = false;
+  private static final Map<WatchKey, File> watchedFolders = new ConcurrentHashMap<>();
+
+  private static synchronized boolean watch(File folder) {
+    if (watchFailed) {
+      return false;
+    }
+    for (File watched : watchedFolders.values()) {
+      if (watched.equals(folder)) {
+        return true;
+      }
+    }
+    if (isRemote(folder)) {
+      Debug.log(lvl, me + "not watched (network, polling): %s", folder);
+      return false;
+    }
+    try {
+      if (watchService == null) {
+        watchService = FileSystems.getDefault().newWatchService();
+        Thread watcher = new Thread(FolderIndex::runWatcher, "SikuliX-FolderIndex");
+        watcher.setDaemon(true);
+        watcher.start();
+      }
+      WatchKey key = folder.toPath().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+          StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+      watchedFolders.put(key, folder);
+      return true;
+    } catch (IOException | UnsupportedOperationException e) {
+      if (watchService == null) {
+        watchFailed = true;
+      }
+      Debug.log(lvl, me + "not watched (polling): %s (%s)", folder, e.getMessage());
+      return false;
+    }
+  }
+
+  private static final Set<String> remoteTypes = new HashSet<>(Arrays.asList(
+      "nfs", "nfs4", "cifs", "smb", "smb2", "smb3", "smbfs", "afpfs", "webdav", "davfs", "ncpfs", "9p",
+      "fuse.sshfs", "fuse.rclone", "fuse.davfs2"));
+
+  private static boolean isRemote(File folder) {
+    if (folder.getPath().startsWith("\\\\")) {
+      return true; // Windows UNC path
+    }
+    try {
+      return remoteTypes.contains(Files.getFileStore(folder.toPath()).type().toLowerCase());
+    } catch (IOException | SecurityException e) {
+      return false;
+    }
+  }
+
+  private static void runWatcher() {
+    while (true) {
+      WatchKey key;
+      try {
+        key = watchService.take();
+      } catch (InterruptedException | ClosedWatchServiceException e) {
+        return;
+      }
+      File folder = watchedFolders.get(key);
+      key.pollEvents();
+      if (folder != null) {
+        invalidate(folder);
+        Debug.log(lvl, me + "changed: %s", folder);
+      }
+      if (!key.reset()) {
+        watchedFolders.remove(key);
+        if (folder != null) {
+          // no longer watched (e.g. deleted): listed again when used
+          invalidate(folder);
+        }
+      }
+    }
+  }
+  //</editor-fold>
+}
@@ -65,4 +65,25 @@ public interface IScreen {
   boolean isValid();
 	String isValidWithMessage();
 	String getDeviceDescription();
+
+  /**
+   * for screens, that report changes of their content (e.g. VNC framebuffer updates)
+   *
+   * @return the number of content updates so far (-1: not reported, the screen has to be polled)
+   */
+  default long getUpdateCount() {
+    return -1;
+  }
+
+  /**
+   * waits until the content in the area changed after the given update (see getUpdateCount())
+   *
+   * @param area    screen coordinates
+   * @param since   the update count seen before
+   * @param timeout milliseconds (0 or less: only check)
+   * @return the changed part of the area, null if nothing changed until timeout
+   */
+  default Rectangle waitForUpdate(Rectangle area, long since, long timeout) {
+    return new Rectangle(area);
+  }
 }
@@ -112,6 +112,31 @@ public interface IScriptRunner {
     }
 
     private File baseFolder = null;
+
+    /**
+     * Output of this run only (used by runners, that run scripts concurrently,
+     * others use the streams given with redirect()).
+     *
+     * @param stdout
+     * @param stderr
+     * @return this to allow chaining
+     */
+    public Options setOutput(PrintStream stdout, PrintStream stderr) {
+      this.stdout = stdout;
+      this.stderr = stderr;
+      return this;
+    }
+
+    public PrintStream getStdout() {
+      return stdout;
+    }
+
+    public PrintStream getStderr() {
+      return stderr;
+    }
+
+    private PrintStream stdout = null;
+    private PrintStream stderr = null;
   }
 
   class EffectiveRunner {
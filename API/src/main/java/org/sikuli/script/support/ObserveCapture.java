@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2010-2020, sikuli.org, sikulix.com - MIT license
+ */
+package org.sikuli.script.support;
+
+import org.sikuli.basics.Settings;
+import org.sikuli.script.Region;
+import org.sikuli.script.ScreenImage;
+
+import java.awt.Rectangle;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * INTERNAL USE
+ * how an observe cycle gets the ScreenImage of the observed region
+ * (to be set with Observing.setCapture())
+ */
+public interface ObserveCapture {
+
+  /**
+   * @param region the observed region
+   * @return the capture of the region for this observe cycle
+   */
+  ScreenImage capture(Region region);
+
+  /**
+   * one capture per region and observe cycle (the default)
+   */
+  ObserveCapture PER_REGION = region -> region.getScreen().capture(region.x, region.y, region.w, region.h);
+
+  /**
+   * the regions observed on the same screen share one capture of their union,
+   * as long as it is not older than the given age
+   */
+  class Shared implements ObserveCapture {
+
+    private final long maxAge;
+    private final Map<IScreen, ScreenImage> captures = new HashMap<>();
+    private final Map<IScreen, Long> captureTimes = new HashMap<>();
+
+    /**
+     * captures shared for half the observe scan interval (Settings.ObserveScanRate)
+     */
+    public Shared() {
+      this((long) (500 / Settings.ObserveScanRate));
+    }
+
+    /**
+     * @param maxAge milliseconds a capture is shared
+     */
+    public Shared(long maxAge) {
+      this.maxAge = maxAge;
+    }
+
+    @Override
+    public ScreenImage capture(Region region) {
+      IScreen screen = region.getScreen();
+      Rectangle rect = region.getRect();
+      ScreenImage shared;
+      synchronized (this) {
+        long now = new Date().getTime();
+        shared = captures.get(screen);
+        Long captureTime = captureTimes.get(screen);
+        if (shared == null || captureTime == null || now - captureTime > maxAge
+            || !shared.getROI().contains(rect)) {
+          Rectangle union = new Rectangle(rect);
+          for (Region observed : Observing.getRunningObservers()) {
+            if (observed.getScreen() == screen) {
+              union = union.union(observed.getRect());
+            }
+          }
+          union = union.intersection(screen.getBounds());
+          if (!union.contains(rect)) {
+            return PER_REGION.capture(region);
+          }
+          shared = screen.capture(union);
+          captures.put(screen, shared);
+          captureTimes.put(screen, now);
+        }
+      }
+      if (shared.getROI().equals(rect)) {
+        return shared;
+      }
+      return shared.getSub(rect);
+    }
+  }
+}
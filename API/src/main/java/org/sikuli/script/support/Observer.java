@@ -3,11 +3,14 @@
  */
 package org.sikuli.script.support;
 
+import org.opencv.core.Mat;
 import org.sikuli.basics.Debug;
 import org.sikuli.basics.Settings;
 import org.sikuli.script.*;
 
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * INTERNAL USE implements the observe action for a region and calls the ObserverCallBacks
@@ -27,13 +30,13 @@ public class Observer {
   }
 
   private Region observedRegion = null;
-  private Map<String, State> eventStates = Collections.synchronizedMap(new HashMap());
-  private Map<String, Long> eventRepeatWaitTimes = Collections.synchronizedMap(new HashMap());
-  private Map<String, Match> eventMatches = Collections.synchronizedMap(new HashMap());
-  private Map<String, Object> eventNames = Collections.synchronizedMap(new HashMap());
-  private Map<String, ObserveEvent.Type> eventTypes = Collections.synchronizedMap(new HashMap());
-  private Map<String, Object> eventCallBacks = Collections.synchronizedMap(new HashMap());
-  private Map<String, Integer> eventCounts = Collections.synchronizedMap(new HashMap());
+  private Map<String, State> eventStates = Collections.synchronizedMap(new HashMap<>());
+  private Map<String, Long> eventRepeatWaitTimes = Collections.synchronizedMap(new HashMap<>());
+  private Map<String, Match> eventMatches = Collections.synchronizedMap(new HashMap<>());
+  private Map<String, Object> eventNames = Collections.synchronizedMap(new LinkedHashMap<>());
+  private Map<String, ObserveEvent.Type> eventTypes = Collections.synchronizedMap(new HashMap<>());
+  private Map<String, Object> eventCallBacks = Collections.synchronizedMap(new HashMap<>());
+  private Map<String, Integer> eventCounts = Collections.synchronizedMap(new HashMap<>());
   private int minChanges = 0;
   private int numChangeCallBacks = 0;
   private int numChangeObservers = 0;
@@ -141,37 +144,115 @@ public class Observer {
     Object callBack = eventCallBacks.get(name);
     Observing.addEvent(observeEvent);
     if (callBack != null && callBack instanceof ObserverCallBack) {
-      log(lvl, "running call back: %s", obsType);
-      if (obsType == ObserveEvent.Type.APPEAR) {
-        ((ObserverCallBack) callBack).appeared(observeEvent);
-      } else if (obsType == ObserveEvent.Type.VANISH) {
-        ((ObserverCallBack) callBack).vanished(observeEvent);
-      } else if (obsType == ObserveEvent.Type.CHANGE) {
-        ((ObserverCallBack) callBack).changed(observeEvent);
-      } else if (obsType == ObserveEvent.Type.GENERIC) {
-        ((ObserverCallBack) callBack).happened(observeEvent);
+      runCallBack(() -> {
+        log(lvl, "running call back: %s", obsType);
+        if (obsType == ObserveEvent.Type.APPEAR) {
+          ((ObserverCallBack) callBack).appeared(observeEvent);
+        } else if (obsType == ObserveEvent.Type.VANISH) {
+          ((ObserverCallBack) callBack).vanished(observeEvent);
+        } else if (obsType == ObserveEvent.Type.CHANGE) {
+          ((ObserverCallBack) callBack).changed(observeEvent);
+        } else if (obsType == ObserveEvent.Type.GENERIC) {
+          ((ObserverCallBack) callBack).happened(observeEvent);
+        }
+      });
+    }
+  }
+
+  //<editor-fold desc="call backs">
+  private ExecutorService callBackExecutor = null;
+  private final AtomicInteger pendingCallBacks = new AtomicInteger(0);
+
+  /**
+   * call backs are run on the observing thread (default)
+   * or with Settings.ObserveCallBackAsync in sequence on a separate thread, so a slow call back does not stall the scans
+   */
+  private void runCallBack(Runnable callBack) {
+    if (!Settings.ObserveCallBackAsync) {
+      callBack.run();
+      return;
+    }
+    pendingCallBacks.incrementAndGet();
+    getCallBackExecutor().execute(() -> {
+      try {
+        callBack.run();
+      } catch (Exception e) {
+        Debug.error(me + "call back failed: %s", e);
+      } finally {
+        synchronized (pendingCallBacks) {
+          if (pendingCallBacks.decrementAndGet() == 0) {
+            pendingCallBacks.notifyAll();
+          }
+        }
+      }
+    });
+  }
+
+  private synchronized ExecutorService getCallBackExecutor() {
+    if (callBackExecutor == null) {
+      ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 10, TimeUnit.SECONDS,
+          new LinkedBlockingQueue<>(), runnable -> {
+        Thread thread = new Thread(runnable, "SikuliX-ObserveCallBack");
+        thread.setDaemon(true);
+        return thread;
+      });
+      executor.allowCoreThreadTimeOut(true);
+      callBackExecutor = executor;
+    }
+    return callBackExecutor;
+  }
+
+  private void waitForCallBacks() {
+    synchronized (pendingCallBacks) {
+      while (pendingCallBacks.get() > 0) {
+        try {
+          pendingCallBacks.wait();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return;
+        }
       }
     }
   }
+  //</editor-fold>
+
+  private static class PatternCheck {
+    final String name;
+    final Object ptn;
+    final Image img;
+    Match match = null;
+    boolean hasMatch = false;
+    long now = 0;
+    boolean done = false;
+
+    PatternCheck(String name, Object ptn, Image img) {
+      this.name = name;
+      this.ptn = ptn;
+      this.img = img;
+    }
+  }
 
   private boolean checkPatterns(ScreenImage simg) {
     log(lvl + 1, "update: checking patterns");
     if (!observedRegion.isObserving()) {
       return false;
     }
-    Finder finder = null;
-    for (String name : eventStates.keySet()) {
-      if (!patternsToCheck()) {
-        continue;
-      }
-      if (eventStates.get(name) == State.REPEAT) {
+    if (!patternsToCheck()) {
+      return false;
+    }
+    List<PatternCheck> checks = new ArrayList<>();
+    for (String name : getNames()) {
+      State state = eventStates.get(name);
+      if (state == State.REPEAT) {
         if ((new Date()).getTime() < eventRepeatWaitTimes.get(name)) {
           continue;
         } else {
           eventStates.put(name, State.UNKNOWN);
+          state = State.UNKNOWN;
         }
       }
-      if (eventStates.get(name) == State.INACTIVE || eventStates.get(name) == State.MISSING) {
+      if (state == null || state == State.INACTIVE || state == State.MISSING
+          || eventTypes.get(name) == ObserveEvent.Type.CHANGE) {
         continue;
       }
       Object ptn = eventNames.get(name);
@@ -181,56 +262,39 @@ public class Observer {
         eventStates.put(name, State.MISSING);
         continue;
       }
-      Match match = null;
-      boolean hasMatch = false;
-      long lastSearchTime;
-      long now = 0;
-//      if (!Settings.UseImageFinder && Settings.CheckLastSeen && null != img.getLastSeen()) {
-      if (Settings.CheckLastSeen && null != img.getLastSeen()) {
-        Region r = Region.create(img.getLastSeen());
-        if (observedRegion.contains(r)) {
-          lastSearchTime = (new Date()).getTime();
-          Finder f = new Finder(new Screen().capture(r), r);
-          f.find(new Pattern(img).similar(Settings.CheckLastSeenSimilar));
-          if (f.hasNext()) {
-            log(lvl + 1, "checkLastSeen: still there");
-            match = new Match(new Region(img.getLastSeen()), img.getLastSeenScore());
-            match.setTimes(0, (new Date()).getTime() - lastSearchTime);
-            hasMatch = true;
-          } else {
-            log(lvl + 1, "checkLastSeen: not there");
-          }
-        }
+      checks.add(new PatternCheck(name, ptn, img));
+    }
+    if (checks.isEmpty()) {
+      return patternsToCheck();
+    }
+
+    // all patterns are searched in parallel in the same capture
+    Mat source = simg.getContent();
+    List<Callable<PatternCheck>> tasks = new ArrayList<>();
+    for (PatternCheck check : checks) {
+      tasks.add(() -> checkPattern(check, simg, source));
+    }
+    FindExecutor.invokeAll(tasks);
+
+    // the state transitions are merged in the order the observers were added
+    for (PatternCheck check : checks) {
+      if (!check.done) {
+        continue;
       }
-      if (match == null) {
-        if (finder == null) {
-//          if (Settings.UseImageFinder) {
-//            finder = new ImageFinder(observedRegion);
-//            ((ImageFinder) finder).setIsMultiFinder();
-//          } else {
-//            finder = new Finder(simg, observedRegion);
-//          }
-          finder = new Finder(simg, observedRegion);
-        }
-        lastSearchTime = (new Date()).getTime();
-        now = (new Date()).getTime();
-        finder.find(img);
-        if (finder.hasNext()) {
-          match = finder.next();
-          match.setTimes(0, now - lastSearchTime);
-          if (match.score() >= getSimiliarity(ptn)) {
-            hasMatch = true;
-            img.setLastSeen(match.getRect(), match.score());
-          }
-        }
+      String name = check.name;
+      if (!eventStates.containsKey(name)) {
+        continue;
       }
+      Match match = check.match;
+      boolean hasMatch = check.hasMatch;
       if (hasMatch) {
+        check.img.setLastSeen(match.getRect(), match.score());
         eventMatches.put(name, match);
-        log(lvl + 1, "(%s): %s match: %s in:%s", eventTypes.get(name), ptn.toString(),
-                match.toStringShort(), observedRegion.toStringShort());
-      } else if (eventStates.get(ptn) == State.FIRST) {
-        log(lvl + 1, "(%s): %s match: %s in:%s", eventTypes.get(name), ptn.toString(),
+        log(lvl + 1, "(%s): %s match: %s in:%s", eventTypes.get(name), check.ptn.toString(),
                 match.toStringShort(), observedRegion.toStringShort());
+      } else if (eventStates.get(name) == State.FIRST) {
+        log(lvl + 1, "(%s): %s not there in:%s", eventTypes.get(name), check.ptn.toString(),
+                observedRegion.toStringShort());
         eventStates.put(name, State.UNKNOWN);
       }
       if (eventStates.get(name) != State.HAPPENED) {
@@ -241,7 +305,7 @@ public class Observer {
                 || (!hasMatch && eventTypes.get(name) == ObserveEvent.Type.VANISH)) {
           eventStates.put(name, State.HAPPENED);
           eventCounts.put(name, eventCounts.get(name) + 1);
-          callEventObserver(name, eventMatches.get(name), now);
+          callEventObserver(name, eventMatches.get(name), check.now);
           if (shouldStopOnFirstEvent) {
             observedRegion.stopObserver();
           }
@@ -254,6 +318,44 @@ public class Observer {
     return patternsToCheck();
   }
 
+  private PatternCheck checkPattern(PatternCheck check, ScreenImage simg, Mat source) {
+    Image img = check.img;
+    Match match = null;
+    long lastSearchTime;
+    if (Settings.CheckLastSeen && null != img.getLastSeen()) {
+      Region r = Region.create(img.getLastSeen());
+      if (observedRegion.contains(r)) {
+        lastSearchTime = (new Date()).getTime();
+        Finder f = new Finder(simg.getSub(r.getRect()), r);
+        f.find(new Pattern(img).similar(Settings.CheckLastSeenSimilar));
+        if (f.hasNext()) {
+          log(lvl + 1, "checkLastSeen: still there");
+          match = new Match(new Region(img.getLastSeen()), img.getLastSeenScore());
+          match.setTimes(0, (new Date()).getTime() - lastSearchTime);
+          check.hasMatch = true;
+        } else {
+          log(lvl + 1, "checkLastSeen: not there");
+        }
+      }
+    }
+    if (match == null) {
+      Finder finder = new Finder(source, observedRegion);
+      lastSearchTime = (new Date()).getTime();
+      check.now = (new Date()).getTime();
+      finder.find(img);
+      if (finder.hasNext()) {
+        match = finder.next();
+        match.setTimes(0, check.now - lastSearchTime);
+        if (match.score() >= getSimiliarity(check.ptn)) {
+          check.hasMatch = true;
+        }
+      }
+    }
+    check.match = match;
+    check.done = true;
+    return check;
+  }
+
   private boolean patternsToCheck() {
     for (String name : eventNames.keySet()) {
       if (eventTypes.get(name) == ObserveEvent.Type.CHANGE) {
@@ -355,8 +457,10 @@ public class Observer {
         Observing.addEvent(observeEvent);
         Object callBack = eventCallBacks.get(name);
         if (callBack != null) {
-          log(lvl, "running call back");
-          ((ObserverCallBack) callBack).changed(observeEvent);
+          runCallBack(() -> {
+            log(lvl, "running call back");
+            ((ObserverCallBack) callBack).changed(observeEvent);
+          });
         }
       }
     }
@@ -366,13 +470,20 @@ public class Observer {
     boolean fromPatterns = checkPatterns(simg);
     log(lvl, "update result: Patterns: %s", fromPatterns);
     if (!observedRegion.isObserving()) {
+      waitForCallBacks();
       return false;
     }
     boolean fromChanges = checkChanges(simg);
     log(lvl, "update result: Changes: %s", fromChanges);
     if (!observedRegion.isObserving()) {
+      waitForCallBacks();
       return false;
     }
+    if (!fromPatterns && !fromChanges) {
+      // running call backs might still ask to repeat
+      waitForCallBacks();
+      fromPatterns = patternsToCheck();
+    }
     return false || fromPatterns || fromChanges;
   }
 }
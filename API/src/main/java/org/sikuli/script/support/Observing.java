@@ -60,6 +60,27 @@ public class Observing {
     log(lvl, "add observer: now running %d observer(s)", runningObservers.size());
   }
 
+  public static List<Region> getRunningObservers() {
+    synchronized (runningObservers) {
+      return new ArrayList<>(runningObservers);
+    }
+  }
+
+  private static ObserveCapture capture = ObserveCapture.PER_REGION;
+
+  /**
+   * how observers get the ScreenImage per observe cycle
+   *
+   * @param policy e.g. new ObserveCapture.Shared() (null resets to ObserveCapture.PER_REGION)
+   */
+  public static void setCapture(ObserveCapture policy) {
+    capture = policy == null ? ObserveCapture.PER_REGION : policy;
+  }
+
+  public static ObserveCapture getCapture() {
+    return capture;
+  }
+
   public static void removeRunningObserver(Region r) {
     runningObservers.remove(r);
     log(lvl, "remove observer: now running %d observer(s)", runningObservers.size());
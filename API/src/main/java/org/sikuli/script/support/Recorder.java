@@ -17,6 +17,7 @@ import org.sikuli.script.Screen;
 import org.sikuli.script.ScreenImage;
 import org.sikuli.script.SikuliXception;
 import org.sikuli.script.support.recorder.RecordedEventsFlow;
+import org.sikuli.script.support.recorder.ScreenshotBuffer;
 import org.sikuli.script.support.recorder.actions.IRecordedAction;
 
 import javax.swing.*;
@@ -46,11 +47,12 @@ public class Recorder implements NativeKeyListener, NativeMouseListener, NativeM
 
   private RecordedEventsFlow eventsFlow = new RecordedEventsFlow();
   private File screenshotDir;
+  private ScreenshotBuffer screenshots;
 
   private volatile boolean running = false;
 
   ScreenImage currentImage = null;
-  String currentImageFilePath = null;
+  ScreenshotBuffer.Frame currentFrame = null;
 
   private long currentMouseX = 0;
   private long currentMouseY = 0;
@@ -111,9 +113,10 @@ public class Recorder implements NativeKeyListener, NativeMouseListener, NativeM
                 // Dedupe screenshots
                 if (img.diffPercentage(currentImage) > 0.0001) {
                   currentImage = img;
-                  currentImageFilePath = currentImage.saveInto(screenshotDir);
+                  // kept in memory - older frames are encoded to screenshotDir in background
+                  currentFrame = screenshots.add(img.getContent());
                 }
-                eventsFlow.addScreenshot(currentImageFilePath);
+                eventsFlow.addScreenshot(currentFrame);
               }
             }
           } finally {
@@ -156,11 +159,12 @@ public class Recorder implements NativeKeyListener, NativeMouseListener, NativeM
 
       eventsFlow.clear();
       currentImage = null;
-      currentImageFilePath = null;
+      currentFrame = null;
 
       try {
         screenshotDir = Files.createTempDirectory("sikulix").toFile();
         screenshotDir.deleteOnExit();
+        screenshots = new ScreenshotBuffer(screenshotDir, Settings.RecorderMemoryFrames);
       } catch (IOException e) {
         throw new SikuliXception("Recorder: createTempDirectory: not possible");
       }
@@ -192,7 +196,11 @@ public class Recorder implements NativeKeyListener, NativeMouseListener, NativeM
       Recorder.unregisterNativeHook();
 
       synchronized (screenshotDir) {
+        screenshots.flush();
         List<IRecordedAction> actions = eventsFlow.compile(progress);
+        screenshots.clear();
+        currentImage = null;
+        currentFrame = null;
 
         // remove screenshots after compile to free up disk space
         try {
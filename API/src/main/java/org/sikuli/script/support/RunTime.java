@@ -205,6 +205,7 @@ public class RunTime {
       return runTime;
     }
     runTime = new RunTime();
+    startPhase(null);
 
     //<editor-fold defaultstate="collapsed" desc="versions">
     if (Debug.getDebugLevel() > 3) {
@@ -281,6 +282,7 @@ public class RunTime {
 
     runTime.fSikulixStore = new File(runTime.fSikulixAppFolder, "SikulixStore");
     runTime.fSikulixStore.mkdir();
+    startPhase("system");
 
     sxOptions = Options.init(runTime);
     optTesting = sxOptions.isOption("testing", false);
@@ -296,6 +298,7 @@ public class RunTime {
 
     Settings.init(runTime); // force Settings initialization
     runTime.initSikulixOptions();
+    startPhase("options");
     //</editor-fold>
 
     //<editor-fold desc="addShutdownHook">
@@ -309,6 +312,7 @@ public class RunTime {
     //</editor-fold>
 
     runTime.init(typ);
+    startPhase("init");
     if (Type.IDE.equals(typ)) {
       runTime.initIDEbefore();
       runTime.initAPI();
@@ -316,10 +320,57 @@ public class RunTime {
     } else {
       runTime.initAPI();
     }
+    startPhase("api");
+    logStartPhases();
     return runTime;
   }
   //</editor-fold>
 
+  //<editor-fold desc="startup phases">
+  private static final List<String> startPhases = new ArrayList<>();
+  private static long startPhaseTime = 0;
+  private static boolean startupDone = false;
+
+  /**
+   * INTERNAL: the time since the previous phase is recorded for this phase
+   *
+   * @param phase name (null: only start the time)
+   */
+  static synchronized void startPhase(String phase) {
+    long now = new Date().getTime();
+    if (phase != null) {
+      startPhases.add(String.format("%s %d", phase, now - startPhaseTime));
+    }
+    startPhaseTime = now;
+  }
+
+  /**
+   * INTERNAL: a deferred phase (e.g. libs), that may run inside one of the startup phases or later,
+   * is recorded with the time since its own start (the startup phases are not affected)
+   *
+   * @param phase name
+   * @param start when the phase was started
+   */
+  static synchronized void endPhase(String phase, long start) {
+    startPhases.add(String.format("%s %d", phase, new Date().getTime() - start));
+    if (startupDone) {
+      logStartPhases();
+    }
+  }
+
+  private static synchronized void logStartPhases() {
+    startupDone = true;
+    runTime.log(3, "startup (msec): %s", getStartPhases());
+  }
+
+  /**
+   * @return the startup phases with their duration in msec (deferred ones like libs added when done)
+   */
+  public static synchronized String getStartPhases() {
+    return String.join(" | ", startPhases);
+  }
+  //</editor-fold>
+
   public static boolean isIDE() {
     return startAsIDE;
   }
@@ -1217,11 +1268,15 @@ java.desktop/sun.awt=ALL-UNNAMED
       }
     }
 
-    for (String aFile : fTempPath.list()) {
-      if ((aFile.startsWith("Sikulix") && (new File(aFile).isFile()))
-          || (aFile.startsWith("jffi") && aFile.endsWith(".tmp"))) {
-        FileManager.deleteFileOrFolder(new File(fTempPath, aFile));
+    WarmStart warmStart = WarmStart.get();
+    if (warmStart.shouldScanTemp()) {
+      for (String aFile : fTempPath.list()) {
+        if ((aFile.startsWith("Sikulix") && (new File(aFile).isFile()))
+            || (aFile.startsWith("jffi") && aFile.endsWith(".tmp"))) {
+          FileManager.deleteFileOrFolder(new File(fTempPath, aFile));
+        }
       }
+      warmStart.scannedTemp();
     }
 
 //    try {
@@ -1581,6 +1636,40 @@ java.desktop/sun.awt=ALL-UNNAMED
   }
 
   private void libsExport() {
+    long start = new Date().getTime();
+    WarmStart warmStart = WarmStart.get();
+    fLibsFolder = new File(fSikulixAppFolder, "SikulixLibs");
+    boolean warm = warmStart.hasFiles("libs", fLibsFolder);
+    if (!warm) {
+      libsExportCheck();
+    }
+    File fJawtDll = null;
+    if (runningWindows) {
+      addToWindowsSystemPath(fLibsFolder);
+      //TODO: Windows: Java Classloader::usr_paths needed for libs access?
+      if (!checkJavaUsrPath(fLibsFolder)) {
+        log(-1, "Problems setting up on Windows - see errors - might not work and crash later");
+      }
+      String lib = "jawt.dll";
+      fJawtDll = new File(fLibsFolder, lib);
+      if (!warm) {
+        FileManager.deleteFileOrFolder(fJawtDll);
+        FileManager.xcopy(new File(sysPropJavaHome, "bin/" + lib), fJawtDll);
+      }
+      if (!fJawtDll.exists()) {
+        throw new SikuliXception("problem copying " + fJawtDll);
+      }
+    }
+    if (!warm) {
+      warmStart.putFiles("libs", fLibsFolder);
+    }
+    endPhase(warm ? "libs(warm)" : "libs", start);
+    log(lvl, "libsExport: %s %s (%s - %s)", warm ? "warm start:" : "checked:",
+        fLibsFolder, getVersionShort(), sxBuildStamp);
+    areLibsExported = true;
+  }
+
+  private void libsExportCheck() {
 /*
     remove obsolete libs folders in Temp
 */
@@ -1625,7 +1714,6 @@ java.desktop/sun.awt=ALL-UNNAMED
 /*
     export
 */
-    fLibsFolder = new File(fSikulixAppFolder, "SikulixLibs");
     String libMsg = "folder exists:";
     if (fLibsFolder.exists()) {
       String[] resourceList = fLibsFolder.list(new FilenameFilter() {
@@ -1694,22 +1782,7 @@ java.desktop/sun.awt=ALL-UNNAMED
       }
 */
 
-    if (runningWindows) {
-      addToWindowsSystemPath(fLibsFolder);
-      //TODO: Windows: Java Classloader::usr_paths needed for libs access?
-      if (!checkJavaUsrPath(fLibsFolder)) {
-        log(-1, "Problems setting up on Windows - see errors - might not work and crash later");
-      }
-      String lib = "jawt.dll";
-      File fJawtDll = new File(fLibsFolder, lib);
-      FileManager.deleteFileOrFolder(fJawtDll);
-      FileManager.xcopy(new File(sysPropJavaHome, "bin/" + lib), fJawtDll);
-      if (!fJawtDll.exists()) {
-        throw new SikuliXception("problem copying " + fJawtDll);
-      }
-    }
     log(lvl, "libsExport: " + libMsg + " %s (%s - %s)", fLibsFolder, getVersionShort(), sxBuildStamp);
-    areLibsExported = true;
   }
 //</editor-fold>
 
@@ -1884,6 +1957,14 @@ java.desktop/sun.awt=ALL-UNNAMED
     if (isLibExported) {
       return;
     }
+    long start = new Date().getTime();
+    WarmStart warmStart = WarmStart.get();
+    File fLibSikuli = new File(fSikulixLib, "sikuli");
+    if (warmStart.hasFiles("lib", fLibSikuli)) {
+      isLibExported = true;
+      endPhase("lib(warm)", start);
+      return;
+    }
     if (!fSikulixLib.exists()
         || !new File(fSikulixLib, "sikuli").exists()) {
       fSikulixLib.mkdir();
@@ -1896,7 +1977,10 @@ java.desktop/sun.awt=ALL-UNNAMED
     if (fLibRobot.exists()) {
       FileManager.deleteFileOrFolder(fLibRobot);
     }
+    // Jython's compiled $py.class files are not exported
+    warmStart.putFiles("lib", fLibSikuli, (dir, name) -> !name.endsWith("$py.class"));
     isLibExported = true;
+    endPhase("lib", start);
   }
 //</editor-fold>
 
@@ -8,6 +8,7 @@ import org.opencv.core.*;
 import org.opencv.imgcodecs.Imgcodecs;
 import org.opencv.imgproc.Imgproc;
 import org.sikuli.basics.Debug;
+import org.sikuli.basics.Settings;
 import org.sikuli.script.*;
 import org.sikuli.script.Image;
 
@@ -21,10 +22,12 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.IntBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 /**
  * INTERNAL: OpenCV related support for other features
@@ -71,19 +74,7 @@ public class SXOpenCV {
     }
     if (bImg.getType() == BufferedImage.TYPE_INT_RGB) {
       Debug.trace("makeMat: INT_RGB (%dx%d)", bImg.getWidth(), bImg.getHeight());
-      int[] data = ((DataBufferInt) bImg.getRaster().getDataBuffer()).getData();
-      ByteBuffer byteBuffer = ByteBuffer.allocate(data.length * 4);
-      IntBuffer intBuffer = byteBuffer.asIntBuffer();
-      intBuffer.put(data);
-      Mat aMat = new Mat(bImg.getHeight(), bImg.getWidth(), CvType.CV_8UC4);
-      aMat.put(0, 0, byteBuffer.array());
-      Mat oMatBGR = new Mat(bImg.getHeight(), bImg.getWidth(), CvType.CV_8UC3);
-      Mat oMatA = new Mat(bImg.getHeight(), bImg.getWidth(), CvType.CV_8UC1);
-      List<Mat> mixIn = new ArrayList<Mat>(Arrays.asList(new Mat[]{aMat}));
-      List<Mat> mixOut = new ArrayList<Mat>(Arrays.asList(new Mat[]{oMatA, oMatBGR}));
-      //A 0 - R 1 - G 2 - B 3 -> A 0 - B 1 - G 2 - R 3
-      Core.mixChannels(mixIn, mixOut, new MatOfInt(0, 0, 1, 3, 2, 2, 3, 1));
-      return oMatBGR;
+      return makeMatFromIntRGB(bImg);
     } else if (bImg.getType() == BufferedImage.TYPE_3BYTE_BGR) {
       Debug.trace("makeMat: 3BYTE_BGR (%dx%d)", bImg.getWidth(), bImg.getHeight());
       byte[] data = ((DataBufferByte) bImg.getRaster().getDataBuffer()).getData();
@@ -162,6 +153,96 @@ public class SXOpenCV {
     return mats;
   }
 
+  private static class IntRGBBuffer {
+    final int width;
+    final int height;
+    final ByteBuffer buffer;
+    final Mat mat;
+
+    IntRGBBuffer(int width, int height) {
+      this.width = width;
+      this.height = height;
+      //an int 0x00RRGGBB in little endian byte order is B G R 0 in memory
+      buffer = ByteBuffer.allocateDirect(width * height * 4).order(ByteOrder.LITTLE_ENDIAN);
+      mat = new Mat(height, width, CvType.CV_8UC4, buffer);
+    }
+  }
+
+  private static final ThreadLocal<IntRGBBuffer> intRGBBuffer = new ThreadLocal<>();
+
+  /**
+   * larger buffers are not kept per thread (e.g. 4K captures: about 33 MB on each find thread)
+   */
+  private static final int INT_RGB_BUFFER_MAX_BYTES = 8 * 1024 * 1024;
+
+  /**
+   * INT_RGB (e.g. screen captures from java.awt.Robot) to BGR:
+   * the pixels are copied once into a direct buffer (reused per thread and size up to INT_RGB_BUFFER_MAX_BYTES),
+   * that backs a BGRA Mat, which is then converted to the resulting BGR Mat (alpha is dropped)
+   *
+   * @param bImg a BufferedImage of TYPE_INT_RGB
+   * @return a new BGR Mat
+   */
+  private static Mat makeMatFromIntRGB(BufferedImage bImg) {
+    int width = bImg.getWidth();
+    int height = bImg.getHeight();
+    int[] data = ((DataBufferInt) bImg.getRaster().getDataBuffer()).getData();
+    if (data.length != width * height) {
+      //sub image sharing the raster of its parent
+      data = bImg.getRGB(0, 0, width, height, null, 0, width);
+    }
+    return makeMatFromIntRGB(data, width, height);
+  }
+
+  /**
+   * @param data   pixels as int 0x00RRGGBB, row by row
+   * @param width  pixels per row
+   * @param height rows
+   * @return a new BGR Mat
+   * @see #makeMatFromIntRGB(BufferedImage)
+   */
+  public static Mat makeMatFromIntRGB(int[] data, int width, int height) {
+    boolean keep = (long) width * height * 4 <= INT_RGB_BUFFER_MAX_BYTES;
+    IntRGBBuffer intBuffer = keep ? intRGBBuffer.get() : null;
+    if (intBuffer == null || intBuffer.width != width || intBuffer.height != height) {
+      if (intBuffer != null) {
+        intBuffer.mat.release();
+      }
+      intBuffer = new IntRGBBuffer(width, height);
+      if (keep) {
+        intRGBBuffer.set(intBuffer);
+      }
+    }
+    IntBuffer pixels = intBuffer.buffer.asIntBuffer();
+    pixels.put(data);
+    Mat mBGR = new Mat();
+    Imgproc.cvtColor(intBuffer.mat, mBGR, Imgproc.COLOR_BGRA2BGR);
+    if (!keep) {
+      intBuffer.mat.release(); // the direct buffer is freed with the next GC
+    }
+    return mBGR;
+  }
+
+  /**
+   * @param data  pixels as int 0x00RRGGBB, row by row
+   * @param width pixels per row in data
+   * @param area  the part to convert (inside data)
+   * @return a new BGR Mat of the area only
+   * @see #makeMatFromIntRGB(int[], int, int)
+   */
+  public static Mat makeMatFromIntRGB(int[] data, int width, Rectangle area) {
+    ByteBuffer buffer = ByteBuffer.allocateDirect(area.width * area.height * 4).order(ByteOrder.LITTLE_ENDIAN);
+    IntBuffer pixels = buffer.asIntBuffer();
+    for (int row = 0; row < area.height; row++) {
+      pixels.put(data, (area.y + row) * width + area.x, area.width);
+    }
+    Mat mBGRA = new Mat(area.height, area.width, CvType.CV_8UC4, buffer);
+    Mat mBGR = new Mat();
+    Imgproc.cvtColor(mBGRA, mBGR, Imgproc.COLOR_BGRA2BGR);
+    mBGRA.release();
+    return mBGR;
+  }
+
   private static Mat makeMat(Size size, int type, int fill) {
     switch (type) {
       case 1:
@@ -337,49 +418,186 @@ public class SXOpenCV {
     return matchResult;
   }
 
+  /**
+   * search only in the changed area (expanded by the target size), since a match can only
+   * have appeared, where at least one of its pixels changed
+   *
+   * @param where          the complete image
+   * @param changed        the changed area in where
+   * @param findAttributes what to find
+   * @return the match (relative to where) or null
+   */
+  public static Match findMatchInArea(Mat where, Rect changed, FindAttributes findAttributes) {
+    Mat what = findAttributes.what();
+    int x1 = Math.max(0, changed.x - what.width() + 1);
+    int y1 = Math.max(0, changed.y - what.height() + 1);
+    int x2 = Math.min(where.width(), changed.x + changed.width + what.width() - 1);
+    int y2 = Math.min(where.height(), changed.y + changed.height + what.height() - 1);
+    if (x2 - x1 < what.width() || y2 - y1 < what.height()) {
+      return null;
+    }
+    Match matchResult = doFindMatch(where.submat(new Rect(x1, y1, x2 - x1, y2 - y1)), findAttributes, false);
+    if (matchResult != null) {
+      matchResult.x += x1;
+      matchResult.y += y1;
+    }
+    return matchResult;
+  }
+
   public static Match checkLastSeen(Mat where, FindAttributes findAttributes) {
     Match matchResult = doFindMatch(where, findAttributes, false);
     return matchResult;
   }
 
   private static Match doFindMatch(Mat where, FindAttributes findAttributes, boolean findAll) {
-    Mat result = new Mat();
+    Mat result = matchPrepared(prepareWhere(where, findAttributes), findAttributes, new Mat());
+    return bestMatch(result, findAttributes, findAll);
+  }
+
+  /**
+   * @return true if the target is searched in the inverted base (plain black targets)
+   */
+  static boolean isInverted(FindAttributes findAttributes) {
+    return findAttributes.target().plain() && findAttributes.target().black();
+  }
+
+  static Mat prepareWhere(Mat where, FindAttributes findAttributes) {
+    return prepareWhere(where, findAttributes.gray(), isInverted(findAttributes));
+  }
+
+  /**
+   * the base as needed by a target (see {@link #matchPrepared(Mat, FindAttributes, Mat)})
+   * <br>not in place: where might be kept for the next scan
+   *
+   * @param where    the base
+   * @param gray     converted to gray
+   * @param inverted bitwise not (after a gray conversion)
+   * @return the prepared base (where itself, if nothing to do)
+   */
+  static Mat prepareWhere(Mat where, boolean gray, boolean inverted) {
     Mat finalWhere = where;
-    if (findAttributes.gray()) {
+    if (gray) {
+      finalWhere = new Mat();
       Imgproc.cvtColor(where, finalWhere, Imgproc.COLOR_BGR2GRAY);
     }
+    if (inverted) {
+      Mat finalWherePlain = new Mat();
+      Core.bitwise_not(finalWhere, finalWherePlain);
+      finalWhere = finalWherePlain;
+    }
+    return finalWhere;
+  }
+
+  /**
+   * the match result of the target in a base, that is already prepared for the target
+   *
+   * @param where          the base as returned by prepareWhere for the target
+   * @param findAttributes what to find
+   * @param result         the result Mat (reused, if it already has the needed size)
+   * @return result
+   */
+  static Mat matchPrepared(Mat where, FindAttributes findAttributes, Mat result) {
     Mat what = findAttributes.what();
     Mat mask = findAttributes.mask();
     if (findAttributes.target().plain()) {
-      Mat finalWherePlain = finalWhere;
-      Mat finalWhatPlain = what;
-      if (findAttributes.target().black()) {
-        Core.bitwise_not(finalWhere, finalWherePlain);
-        Core.bitwise_not(what, finalWhatPlain);
-      }
       if (mask.empty()) {
-        Imgproc.matchTemplate(finalWherePlain, finalWhatPlain, result, Imgproc.TM_SQDIFF_NORMED);
+        Mat finalWhatPlain = what;
+        if (findAttributes.target().black()) {
+          //not in place: what is the cached image content
+          finalWhatPlain = new Mat();
+          Core.bitwise_not(what, finalWhatPlain);
+        }
+        matchTemplate(where, finalWhatPlain, result, Imgproc.TM_SQDIFF_NORMED, null);
       } else {
-        Imgproc.matchTemplate(finalWherePlain, what, result, Imgproc.TM_SQDIFF_NORMED, mask);
+        matchTemplate(where, what, result, Imgproc.TM_SQDIFF_NORMED, mask);
       }
       Core.subtract(Mat.ones(result.size(), CvType.CV_32F), result, result);
     } else if (mask.empty()) {
-      Imgproc.matchTemplate(where, what, result, Imgproc.TM_CCOEFF_NORMED);
+      matchTemplate(where, what, result, Imgproc.TM_CCOEFF_NORMED, null);
     } else {
-      Imgproc.matchTemplate(where, what, result, Imgproc.TM_CCORR_NORMED, mask);
+      matchTemplate(where, what, result, Imgproc.TM_CCORR_NORMED, mask);
     }
+    return result;
+  }
+
+  /**
+   * @param result         a match result
+   * @param findAttributes what was searched
+   * @param findAll        the match keeps the result for iterating
+   * @return the best match in the result or null, if not similar enough
+   */
+  static Match bestMatch(Mat result, FindAttributes findAttributes, boolean findAll) {
     Core.MinMaxLocResult minMax = Core.minMaxLoc(result);
     double maxVal = minMax.maxVal;
     if (maxVal > findAttributes.target().similarity()) {
       Point point = new Point((int) minMax.maxLoc.x, (int) minMax.maxLoc.y);
-      if (!findAll) {
-        result = null;
-      }
-      return new Match(point, maxVal, result);
+      return new Match(point, maxVal, findAll ? result : null);
     }
     return null;
   }
 
+  private static final int TILED_MIN_ROWS = 64; // result rows per strip at least
+
+  /**
+   * Imgproc.matchTemplate with the result of the given method.
+   * <br>bases with at least Settings.FindTiledMinPixels are split into horizontal strips
+   * (overlapping by the template height - 1), that are matched in parallel on the find threads.
+   * The stitched result is the same as from one matchTemplate over the complete base.
+   *
+   * @param where  the base
+   * @param what   the template
+   * @param method Imgproc.TM_...
+   * @param mask   null or empty: no mask
+   * @return the result (where.cols - what.cols + 1) x (where.rows - what.rows + 1) as CV_32F
+   */
+  public static Mat matchTemplate(Mat where, Mat what, int method, Mat mask) {
+    return matchTemplate(where, what, new Mat(), method, mask);
+  }
+
+  static Mat matchTemplate(Mat where, Mat what, Mat result, int method, Mat mask) {
+    int resultRows = where.rows() - what.rows() + 1;
+    int resultCols = where.cols() - what.cols() + 1;
+    int strips = 1;
+    if (Settings.FindTiledMinPixels > 0 && resultRows > 0 && resultCols > 0 && !FindExecutor.isFindThread()
+        && (long) where.rows() * where.cols() >= Settings.FindTiledMinPixels) {
+      strips = Math.min(FindExecutor.getThreads(), resultRows / TILED_MIN_ROWS);
+    }
+    if (strips < 2) {
+      doMatchTemplate(where, what, result, method, mask);
+      return result;
+    }
+    result.create(resultRows, resultCols, CvType.CV_32F);
+    int stripRows = (resultRows + strips - 1) / strips;
+    List<Callable<Boolean>> tasks = new ArrayList<>();
+    for (int start = 0; start < resultRows; start += stripRows) {
+      int end = Math.min(resultRows, start + stripRows);
+      Mat whereStrip = where.rowRange(start, end + what.rows() - 1);
+      Mat resultStrip = result.rowRange(start, end);
+      tasks.add(() -> {
+        Mat stripResult = new Mat();
+        doMatchTemplate(whereStrip, what, stripResult, method, mask);
+        stripResult.copyTo(resultStrip);
+        return true;
+      });
+    }
+    for (Boolean done : FindExecutor.invokeAll(tasks)) {
+      if (done == null) {
+        //a strip failed: no partial results
+        doMatchTemplate(where, what, result, method, mask);
+        break;
+      }
+    }
+    return result;
+  }
+
+  private static void doMatchTemplate(Mat where, Mat what, Mat result, int method, Mat mask) {
+    if (mask == null || mask.empty()) {
+      Imgproc.matchTemplate(where, what, result, method);
+    } else {
+      Imgproc.matchTemplate(where, what, result, method, mask);
+    }
+  }
+
   public static boolean isColorEqual(int[] cvColor, Color otherColor) {
     Color col = new Color(cvColor[2], cvColor[1], cvColor[0]);
     int r = (col.getRed() - otherColor.getRed()) * (col.getRed() - otherColor.getRed());
@@ -394,11 +612,44 @@ public class SXOpenCV {
   private static int colored = CvType.CV_8UC3;
   private static int transparent = CvType.CV_8UC4;
 
+  private static final int PIXEL_DIFF_THRESHOLD = 3;
+  private static final int IMAGE_DIFF_THRESHOLD = 5;
+
+  /**
+   * the bounding box of all pixels, that changed between two captures of the same area
+   *
+   * @param previous the previous capture
+   * @param next     the current capture
+   * @return null if nothing changed, the complete area if the captures are not comparable
+   */
+  public static Rect getChangedArea(Mat previous, Mat next) {
+    Rect all = new Rect(0, 0, next.width(), next.height());
+    if (previous.empty() || !previous.size().equals(next.size()) || previous.type() != next.type()) {
+      return all;
+    }
+    Mat mDiff = SXOpenCV.newMat();
+    Core.absdiff(previous, next, mDiff);
+    if (mDiff.channels() > 1) {
+      //the largest difference in any of the channels
+      List<Mat> channels = new ArrayList<>();
+      Core.split(mDiff, channels);
+      mDiff = channels.get(0);
+      for (int n = 1; n < channels.size(); n++) {
+        Core.max(mDiff, channels.get(n), mDiff);
+      }
+    }
+    Imgproc.threshold(mDiff, mDiff, PIXEL_DIFF_THRESHOLD, 255, Imgproc.THRESH_BINARY);
+    if (Core.countNonZero(mDiff) == 0) {
+      return null;
+    }
+    Mat mChanged = SXOpenCV.newMat();
+    Core.findNonZero(mDiff, mChanged);
+    return Imgproc.boundingRect(mChanged);
+  }
+
   public static List<Match> doFindChanges(Image original, Image changed) {
     List<Match> changes = new ArrayList<>();
     if (changed.isValid()) {
-      int PIXEL_DIFF_THRESHOLD = 3;
-      int IMAGE_DIFF_THRESHOLD = 5;
       Mat previousGray = SXOpenCV.newMat();
       Mat nextGray = SXOpenCV.newMat();
       Mat mDiffAbs = SXOpenCV.newMat();
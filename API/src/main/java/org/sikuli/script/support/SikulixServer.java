@@ -11,7 +11,6 @@ import java.util.*;
 import java.util.Map.Entry;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
@@ -27,6 +26,7 @@ import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.tuple.Pair;
 import org.sikuli.basics.Debug;
 import org.sikuli.basics.FileManager;
+import org.sikuli.basics.Settings;
 
 import io.undertow.Handlers;
 import io.undertow.Undertow;
@@ -345,9 +345,20 @@ public class SikulixServer {
           .add(Methods.GET, "/pause", pause)
           .add(Methods.POST, "/pause", pause)
           .add(Methods.GET, "/resume", resume)
-          .add(Methods.POST, "/resume", resume);
+          .add(Methods.POST, "/resume", resume)
+          .add(Methods.GET, "/metrics", metrics)
+          .add(Methods.POST, "/metrics/reset", metricsReset);
     }
 
+    private HttpHandler metrics = exchange -> {
+      sendResponse(exchange, StatusCodes.OK, FindMetrics.snapshot());
+    };
+
+    private HttpHandler metricsReset = exchange -> {
+      FindMetrics.reset();
+      sendResponse(exchange, StatusCodes.OK, new SimpleResponse("metrics reset"));
+    };
+
     private HttpHandler stop = exchange -> {
       sendResponse(exchange, StatusCodes.OK, new SimpleResponse("stopping server"));
       synchronized (lock) {
@@ -488,27 +499,33 @@ public class SikulixServer {
         String groupName = getCurrentGroup(exchange);
         String scriptName = exchange.getQueryParameters().get("*").getLast().replaceFirst("/run$", "");
         String[] scriptArgs = getScriptArgs(exchange);
-  
-        Task task = getTaskManager().requestSync(id, groupName, scriptName, scriptArgs);
-        int retval = task.exitCode;
-        switch(retval) {
-          case Runner.FILE_NOT_FOUND:
-            responseObject = new ErrorResponse(String.format("script not found '%s'", scriptName));
-            statusCode = StatusCodes.NOT_FOUND;
-            break;
-          case Runner.NOT_SUPPORTED:
-            responseObject = new ErrorResponse(String.format("script not supported '%s'", scriptName));
-            statusCode = StatusCodes.NOT_FOUND;
-            break;
-          default:
-            if (retval < 0 || 255 < retval) {
-              responseObject = new ErrorResponse(String.format("script failed exitCode='%d'", retval));
-              statusCode = StatusCodes.SERVICE_UNAVAILABLE;
-            } else {
-              responseObject = task;
-            }
-            break;
-        }  
+        String resource = getResource(exchange);
+
+        Task task = getTaskManager().requestSync(id, groupName, scriptName, scriptArgs, resource);
+        if (task == null) {
+          responseObject = new ErrorResponse(String.format("too many waiting tasks"));
+          statusCode = StatusCodes.TOO_MANY_REQUESTS;
+        } else {
+          int retval = task.exitCode;
+          switch(retval) {
+            case Runner.FILE_NOT_FOUND:
+              responseObject = new ErrorResponse(String.format("script not found '%s'", scriptName));
+              statusCode = StatusCodes.NOT_FOUND;
+              break;
+            case Runner.NOT_SUPPORTED:
+              responseObject = new ErrorResponse(String.format("script not supported '%s'", scriptName));
+              statusCode = StatusCodes.NOT_FOUND;
+              break;
+            default:
+              if (retval < 0 || 255 < retval) {
+                responseObject = new ErrorResponse(String.format("script failed exitCode='%d'", retval));
+                statusCode = StatusCodes.SERVICE_UNAVAILABLE;
+              } else {
+                responseObject = task;
+              }
+              break;
+          }
+        }
       }
       sendResponse(exchange, statusCode, responseObject);
     });
@@ -518,9 +535,14 @@ public class SikulixServer {
       String groupName = getCurrentGroup(exchange);
       String scriptName = exchange.getQueryParameters().get("*").getLast().replaceFirst("/task$", "");
       String[] scriptArgs = getScriptArgs(exchange);
+      String resource = getResource(exchange);
 
-      Task task = getTaskManager().requestAsync(id, groupName, scriptName, scriptArgs);
-      sendResponse(exchange, StatusCodes.OK, task);
+      Task task = getTaskManager().requestAsync(id, groupName, scriptName, scriptArgs, resource);
+      if (task == null) {
+        sendResponse(exchange, StatusCodes.TOO_MANY_REQUESTS, new ErrorResponse(String.format("too many waiting tasks")));
+      } else {
+        sendResponse(exchange, StatusCodes.OK, task);
+      }
     };
 
     private HttpHandler delegate = exchange -> {
@@ -579,6 +601,25 @@ public class SikulixServer {
       return Optional.ofNullable(attachment.get(GroupsCommand.ATTACHMENTKEY_GROUPNAME)).orElse(DEFAULT_GROUP);
     }
 
+    /**
+     * tasks on the same resource (e.g. a VNC screen) do not run in parallel
+     * <br>given as resource=... (query or form), default: the group
+     */
+    private String getResource(final HttpServerExchange exchange) {
+      String resource = Optional.ofNullable(exchange.getQueryParameters().get("resource"))
+          .map(values -> values.getLast()).orElse(null);
+      if (exchange.getRequestMethod().equals(Methods.POST)) {
+        FormData form = exchange.getAttachment(FormDataParser.FORM_DATA);
+        if (form != null && form.getLast("resource") != null) {
+          resource = form.getLast("resource").getValue();
+        }
+      }
+      if (resource == null || resource.trim().isEmpty()) {
+        return getCurrentGroup(exchange);
+      }
+      return resource.trim();
+    }
+
     private String[] getScriptArgs(final HttpServerExchange exchange) {
       String[] args = {};
       Optional<String> argsString = Optional.empty();
@@ -744,7 +785,8 @@ public class SikulixServer {
 
   private static class TaskManager {
     private LinkedHashMap<String, Task> allTasks;
-    private LinkedBlockingDeque<Task> queue;
+    private LinkedList<Task> queue;
+    private Set<String> busyResources;
     private boolean shouldStop;
     private boolean shouldPause;
     private Object lock;
@@ -752,50 +794,82 @@ public class SikulixServer {
 
     public TaskManager() {
       allTasks = new LinkedHashMap<>();
-      queue = new LinkedBlockingDeque<>();
+      queue = new LinkedList<>();
+      busyResources = new HashSet<>();
       shouldStop = false;
       shouldPause = false;
-      executor = Executors.newSingleThreadExecutor(r -> new Thread(r, "Task Executor"));
       lock = new Object();
-      executor.execute(() -> {
-        while (!shouldStop) {
-          Task task = null;
-          try {
-            synchronized(lock) {
-              while (shouldPause) {
-                lock.wait();
-              }
+      int workers = Math.max(1, Settings.ServerWorkers);
+      AtomicInteger workerCount = new AtomicInteger();
+      executor = Executors.newFixedThreadPool(workers,
+          r -> new Thread(r, "Task Executor" + (workers > 1 ? "-" + workerCount.incrementAndGet() : "")));
+      for (int n = 0; n < workers; n++) {
+        executor.execute(this::runTasks);
+      }
+    }
+
+    private void runTasks() {
+      while (!shouldStop) {
+        Task task = null;
+        try {
+          synchronized(lock) {
+            while (!shouldStop && (shouldPause || (task = nextTask()) == null)) {
+              lock.wait();
             }
-            task = queue.take();
-            if ("shouldStop".equals(task.id) || "shouldPause".equals(task.id)) {
-              // NOOP
-            } else {
-              synchronized(task) {
-                if (task.isWaiting()) {
-                  task.updateStatus(Task.Status.RUNNING);
-                }
-              }
-              if (task.isRunning()) {
-                  task.runScript();
+            if (shouldStop) {
+              break;
+            }
+            synchronized(task) {
+              if (task.isWaiting()) {
+                task.updateStatus(Task.Status.RUNNING);
               }
             }
-          } catch (InterruptedException ex) {
-            // NOOP
-          } catch (Exception ex) {
-            SikulixServer.dolog(-1, "ScriptExecutor: Exception: %s", ex);
-            ex.printStackTrace();
-            if (task != null) {
-              task.updateStatus(Task.Status.FAILED);
+          }
+          if (task.isRunning()) {
+              task.runScript();
+          }
+        } catch (InterruptedException ex) {
+          // NOOP
+        } catch (Exception ex) {
+          SikulixServer.dolog(-1, "ScriptExecutor: Exception: %s", ex);
+          ex.printStackTrace();
+          if (task != null) {
+            task.updateStatus(Task.Status.FAILED);
+          }
+        } finally {
+          if (task != null) {
+            task.finished();
+            synchronized(lock) {
+              busyResources.remove(task.resource);
+              lock.notifyAll();
             }
-          } finally {
-            if (task != null) {
-              synchronized(task) {
-                task.notify();
-              }
+            synchronized(task) {
+              task.notify();
             }
           }
         }
-      });
+      }
+    }
+
+    /**
+     * the first waiting task, whose resource (screen, group) is not used by a running task.
+     * <br>tasks on the same resource are run one after the other in the requested order
+     */
+    private Task nextTask() {
+      Iterator<Task> tasks = queue.iterator();
+      while (tasks.hasNext()) {
+        Task task = tasks.next();
+        if (!task.isWaiting()) {
+          tasks.remove();
+          continue;
+        }
+        if (!busyResources.contains(task.resource)) {
+          tasks.remove();
+          busyResources.add(task.resource);
+          return task;
+        }
+      }
+      return null;
     }
 
     public Map<String, Task> getTasks(Optional<String> groupName, Optional<String> scriptName) {
@@ -819,20 +893,32 @@ public class SikulixServer {
       return Collections.unmodifiableMap(result);
     }
 
-    public Task requestSync(final String id, final String groupName, final String scriptName, final String[] scriptArgs) throws Exception {
-      return request(id, groupName, scriptName, scriptArgs, false);
+    public Task requestSync(final String id, final String groupName, final String scriptName,
+                            final String[] scriptArgs, final String resource) throws Exception {
+      return request(id, groupName, scriptName, scriptArgs, resource, false);
     }
 
-    public Task requestAsync(final String id, final String groupName, final String scriptName, final String[] scriptArgs) throws Exception {
-      return request(id, groupName, scriptName, scriptArgs, true);
+    public Task requestAsync(final String id, final String groupName, final String scriptName,
+                             final String[] scriptArgs, final String resource) throws Exception {
+      return request(id, groupName, scriptName, scriptArgs, resource, true);
     }
 
-    private Task request(final String id, final String groupName, final String scriptName, 
-        final String[] scriptArgs, boolean isAsync) throws Exception {
-      Task request = new Task(id, groupName, scriptName, scriptArgs, isAsync);
-      synchronized(allTasks) {
-        allTasks.put(request.id, request);
-        queue.put(request);
+    /**
+     * @return the task or null, if the queue is full (Settings.ServerQueueLimit)
+     */
+    private Task request(final String id, final String groupName, final String scriptName,
+        final String[] scriptArgs, final String resource, boolean isAsync) throws Exception {
+      Task request = new Task(id, groupName, scriptName, scriptArgs, resource, isAsync);
+      synchronized(lock) {
+        if (Settings.ServerQueueLimit > 0 && queue.stream().filter(Task::isWaiting).count() >= Settings.ServerQueueLimit) {
+          SikulixServer.dolog(-1, "queue full (%d tasks waiting): rejected: %s", Settings.ServerQueueLimit, scriptName);
+          return null;
+        }
+        synchronized(allTasks) {
+          allTasks.put(request.id, request);
+        }
+        queue.add(request);
+        lock.notifyAll();
       }
       if (!isAsync) {
         synchronized(request) {
@@ -864,8 +950,10 @@ public class SikulixServer {
     }
 
     public void stop() {
-      shouldStop = true;
-      queue.addFirst(new Task("shouldStop", null, null, null, true));
+      synchronized(lock) {
+        shouldStop = true;
+        lock.notifyAll();
+      }
       executor.shutdown();
       while(!executor.isTerminated()) {
         try {
@@ -882,7 +970,6 @@ public class SikulixServer {
           return false;
         } else {
           shouldPause = true;
-          queue.addFirst(new Task("shouldPause", null, null, null, true));
           return true;
         }
       }
@@ -892,7 +979,7 @@ public class SikulixServer {
       synchronized(lock) {
         if (shouldPause) {
           shouldPause = false;
-          lock.notify();
+          lock.notifyAll();
           return true;
         } else {
           return false;
@@ -910,21 +997,27 @@ public class SikulixServer {
     public final String groupName;
     public final String scriptName;
     public final String[] scriptArgs;
+    public final String resource;
     @SuppressWarnings("unused")
     public final boolean isAsync;
     public Status status;
+    public Date requestDate;
     public Date startDate;
     public Date endDate;
     public int exitCode;
+    public long waitTime = -1; // msec from request to start
+    public long runTime = -1; // msec from start to end
 
-    private Task(final String id, final String groupName, 
-                 final String scriptName, final String[] scriptArgs, final boolean isAsync) {
+    private Task(final String id, final String groupName, final String scriptName,
+                 final String[] scriptArgs, final String resource, final boolean isAsync) {
       this.id = id;
       this.groupName = groupName;
       this.scriptName = scriptName;
       this.scriptArgs = scriptArgs;
+      this.resource = resource == null ? groupName : resource;
       this.isAsync = isAsync;
       this.status = Status.WAITING;
+      this.requestDate = new Date();
     }
 
     @JsonIgnore
@@ -942,10 +1035,15 @@ public class SikulixServer {
     }
 
     public void runScript() {
-      RunTime.get().fWorkDir = groups.get(groupName);
-      String[] scripts = RunTime.resolveRelativeFiles(new String[]{scriptName});
-      RunTime.setUserArgs(scriptArgs);
+      String[] scripts;
+      synchronized(Task.class) {
+        // global settings: scripts running in parallel only see their own while being resolved
+        RunTime.get().fWorkDir = groups.get(groupName);
+        scripts = RunTime.resolveRelativeFiles(new String[]{scriptName});
+        RunTime.setUserArgs(scriptArgs);
+      }
       startDate = new Date();
+      waitTime = startDate.getTime() - requestDate.getTime();
       exitCode = Runner.runScripts(scripts, scriptArgs, new IScriptRunner.Options());
       endDate = new Date();
       if (exitCode < 0 || 255 < exitCode) {
@@ -955,11 +1053,25 @@ public class SikulixServer {
       }
     }
 
+    public void finished() {
+      if (startDate != null && endDate == null) {
+        endDate = new Date();
+      }
+      if (startDate != null) {
+        runTime = endDate.getTime() - startDate.getTime();
+        SikulixServer.dolog(1, "task %s (%s on %s): waited %d msec, ran %d msec",
+            id, scriptName, resource, waitTime, runTime);
+      }
+    }
+
     @Override
     public Task clone() {
       Task clone = null;
       try {
         clone = (Task) super.clone();
+        if (requestDate != null) {
+          clone.requestDate = (Date) requestDate.clone();
+        }
         if (startDate != null) {
           clone.startDate = (Date) startDate.clone();
         }
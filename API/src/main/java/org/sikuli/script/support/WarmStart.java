@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2010-2020, sikuli.org, sikulix.com - MIT license
+ */
+
+package org.sikuli.script.support;
+
+import org.sikuli.basics.Debug;
+import org.sikuli.basics.Settings;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.*;
+
+/**
+ * INTERNAL: what RunTime verified at startup, so the next start with the same SikuliX build and Java
+ * does not have to do it again (SikulixStore/WarmStart.properties in the SikuliX app data folder).
+ * <pre>
+ * - files exported from the jar (native libs, Lib/sikuli): location, size, modification time, SHA-256
+ *   (a group is taken as valid, as long as all its files exist with the recorded size and time -
+ *   a file only touched (other time, same size) is checked with its SHA-256)
+ * - the last scan of the temp folder for leftovers (done at most once a day)
+ * </pre>
+ * the manifest is dropped with another SikuliX build, Java, OS or app data folder
+ * (Settings.WarmStart = false: always the complete checks)
+ */
+public class WarmStart {
+
+  private static String me = "WarmStart: ";
+  private static int lvl = 3;
+
+  private static void log(int level, String message, Object... args) {
+    Debug.logx(level, me + message, args);
+  }
+
+  private static final long TEMP_SCAN_INTERVAL = 24 * 60 * 60 * 1000L;
+
+  private static WarmStart instance = null;
+
+  private final File file;
+  private final String key;
+  private final Properties properties = new Properties();
+  private boolean valid = false;
+
+  private WarmStart(File file, String key) {
+    this.file = file;
+    this.key = key;
+  }
+
+  /**
+   * the manifest is read with the first use (RunTime must have its build stamp)
+   *
+   * @return the manifest
+   */
+  public static synchronized WarmStart get() {
+    if (instance == null) {
+      RunTime runTime = RunTime.get();
+      String key = String.format("%s|%s|%s|%s|%s|%s", runTime.getVersionShort(), runTime.sxBuildStamp,
+          RunTime.sysPropJavaHome, RunTime.sysPropOsName, RunTime.sysPropOsArch, runTime.fSikulixAppFolder);
+      instance = new WarmStart(new File(runTime.fSikulixStore, "WarmStart.properties"), key);
+      instance.load();
+    }
+    return instance;
+  }
+
+  private void load() {
+    if (!Settings.WarmStart || !file.exists()) {
+      return;
+    }
+    try (InputStream inputStream = new FileInputStream(file)) {
+      properties.load(inputStream);
+    } catch (IOException e) {
+      properties.clear();
+      return;
+    }
+    valid = key.equals(properties.getProperty("key"));
+    if (!valid) {
+      log(lvl, "not valid (other build, Java or app data folder)");
+      properties.clear();
+    }
+  }
+
+  /**
+   * @param group  a name for the files
+   * @param folder where the files were exported to
+   * @return true if the group was recorded for this folder and all files are unchanged
+   */
+  public synchronized boolean hasFiles(String group, File folder) {
+    if (!valid || !folder.getAbsolutePath().equals(properties.getProperty(group))) {
+      return false;
+    }
+    String prefix = group + ".";
+    boolean found = false;
+    boolean touched = false;
+    for (String name : properties.stringPropertyNames()) {
+      if (!name.startsWith(prefix)) {
+        continue;
+      }
+      String[] parts = properties.getProperty(name).split(":");
+      File aFile = new File(folder, name.substring(prefix.length()));
+      if (parts.length < 2 || !aFile.isFile() || !parts[0].equals("" + aFile.length())) {
+        log(lvl, "changed: %s", aFile);
+        return false;
+      }
+      if (!parts[1].equals("" + aFile.lastModified())) {
+        String hash = parts.length > 2 ? parts[2] : "";
+        if (hash.isEmpty() || !hash.equals(hash(aFile))) {
+          log(lvl, "changed: %s", aFile);
+          return false;
+        }
+        log(lvl + 1, "touched (same content): %s", aFile);
+        properties.setProperty(name, String.format("%s:%d:%s", parts[0], aFile.lastModified(), hash));
+        touched = true;
+      }
+      found = true;
+    }
+    if (found && touched) {
+      save();
+    }
+    return found;
+  }
+
+  /**
+   * records the files (top level) in the folder as the group and saves the manifest
+   *
+   * @param group  a name for the files
+   * @param folder where the files were exported to
+   */
+  public void putFiles(String group, File folder) {
+    putFiles(group, folder, null);
+  }
+
+  /**
+   * records the files (top level) in the folder as the group and saves the manifest
+   *
+   * @param group  a name for the files
+   * @param folder where the files were exported to
+   * @param filter only these files (e.g. not the ones created later by others), null: all
+   */
+  public synchronized void putFiles(String group, File folder, FilenameFilter filter) {
+    if (!Settings.WarmStart) {
+      return;
+    }
+    String prefix = group + ".";
+    properties.stringPropertyNames().stream()
+        .filter(name -> name.startsWith(prefix)).forEach(properties::remove);
+    File[] files = folder.listFiles(aFile -> aFile.isFile()
+        && (filter == null || filter.accept(folder, aFile.getName())));
+    if (files == null) {
+      properties.remove(group);
+      save();
+      return;
+    }
+    for (File aFile : files) {
+      properties.setProperty(prefix + aFile.getName(),
+          String.format("%d:%d:%s", aFile.length(), aFile.lastModified(), hash(aFile)));
+    }
+    properties.setProperty(group, folder.getAbsolutePath());
+    save();
+  }
+
+  /**
+   * @return true if the temp folder should be scanned for leftovers (see scannedTemp())
+   */
+  public synchronized boolean shouldScanTemp() {
+    if (!valid) {
+      return true;
+    }
+    try {
+      return new Date().getTime() - Long.parseLong(properties.getProperty("tempScanned", "0")) > TEMP_SCAN_INTERVAL;
+    } catch (NumberFormatException e) {
+      return true;
+    }
+  }
+
+  public synchronized void scannedTemp() {
+    if (!Settings.WarmStart) {
+      return;
+    }
+    properties.setProperty("tempScanned", "" + new Date().getTime());
+    save();
+  }
+
+  private void save() {
+    properties.setProperty("key", key);
+    try {
+      file.getParentFile().mkdirs();
+      File temp = File.createTempFile("WarmStart", ".tmp", file.getParentFile());
+      try (OutputStream outputStream = new FileOutputStream(temp)) {
+        properties.store(outputStream, "SikuliX warm start - do not edit");
+      }
+      Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      valid = true;
+    } catch (IOException e) {
+      log(-1, "not saved: %s (%s)", file, e.getMessage());
+    }
+  }
+
+  private static String hash(File aFile) {
+    try (InputStream inputStream = new BufferedInputStream(new FileInputStream(aFile))) {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      byte[] buffer = new byte[65536];
+      int count;
+      while ((count = inputStream.read(buffer)) > 0) {
+        digest.update(buffer, 0, count);
+      }
+      StringBuilder hex = new StringBuilder();
+      for (byte b : digest.digest()) {
+        hex.append(String.format("%02x", b));
+      }
+      return hex.toString();
+    } catch (Exception e) {
+      return "";
+    }
+  }
+}
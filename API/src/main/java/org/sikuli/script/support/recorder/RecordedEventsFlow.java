@@ -12,9 +12,9 @@ import org.opencv.core.Core;
 import org.opencv.core.Mat;
 import org.opencv.core.MatOfPoint;
 import org.opencv.core.Rect;
-import org.opencv.imgcodecs.Imgcodecs;
 import org.opencv.imgproc.Imgproc;
 import org.sikuli.script.*;
+import org.sikuli.script.support.FindExecutor;
 import org.sikuli.script.support.KeyboardLayout;
 import org.sikuli.script.support.recorder.actions.*;
 
@@ -24,6 +24,10 @@ import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.Field;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 /**
@@ -44,7 +48,7 @@ public class RecordedEventsFlow {
   private static final int DOUBLE_CLICK_TIME = 300;
 
   private TreeMap<Long, NativeInputEvent> events = new TreeMap<>();
-  private TreeMap<Long, String> screenshots = new TreeMap<>();
+  private TreeMap<Long, ScreenshotBuffer.Frame> screenshots = new TreeMap<>();
 
   Set<Character> modifiers = new LinkedHashSet<>();
   StringBuilder typedText = new StringBuilder();
@@ -66,8 +70,17 @@ public class RecordedEventsFlow {
    * @param screenshotFilePath
    */
   public void addScreenshot(String screenshotFilePath) {
+    addScreenshot(new ScreenshotBuffer.Frame(screenshotFilePath));
+  }
+
+  /**
+   * Adds a screenshot kept by a ScreenshotBuffer to the event flow.
+   *
+   * @param screenshot
+   */
+  public void addScreenshot(ScreenshotBuffer.Frame screenshot) {
     synchronized (this) {
-      screenshots.put(System.currentTimeMillis(), screenshotFilePath);
+      screenshots.put(System.currentTimeMillis(), screenshot);
     }
   }
 
@@ -94,12 +107,14 @@ public class RecordedEventsFlow {
         progress.setMinimum(0);
         progress.setMaximum(events.size());
       }
+      progressCount = 0;
 
-      List<org.sikuli.script.support.recorder.actions.IRecordedAction> actions = new LinkedList<>();
       modifiers.clear();
       typedText = new StringBuilder();
 
-      int i = 0;
+      // stage 1: segment the events into actions (sequential, fast)
+      // the image extraction of each action is deferred to stage 2
+      List<Callable<List<IRecordedAction>>> steps = new ArrayList<>();
 
       for (Map.Entry<Long, NativeInputEvent> entry : events.entrySet()) {
         if (progress != null && progress.isCanceled()) {
@@ -110,14 +125,58 @@ public class RecordedEventsFlow {
         NativeInputEvent event = entry.getValue();
 
         if (event instanceof NativeKeyEvent) {
-          actions.addAll(handleKeyEvent(time, (NativeKeyEvent) event));
+          List<IRecordedAction> keyActions = handleKeyEvent(time, (NativeKeyEvent) event);
+          if (!keyActions.isEmpty()) {
+            steps.add(() -> keyActions);
+          }
         } else if (event instanceof NativeMouseEvent) {
-          actions.addAll(handleMouseEvent(time, (NativeMouseEvent) event));
+          steps.addAll(handleMouseEvent(time, (NativeMouseEvent) event));
         }
 
-        if (progress != null) {
-          progress.setProgress(++i);
+        advance(progress);
+      }
+
+      // stage 2: extract the images of the actions (parallel, results in recorded order)
+      if (progress != null) {
+        progress.setMaximum(events.size() + steps.size());
+      }
+      List<Future<List<IRecordedAction>>> results = new ArrayList<>();
+      for (Callable<List<IRecordedAction>> step : steps) {
+        results.add(FindExecutor.submit(() -> {
+          if (progress != null && progress.isCanceled()) {
+            return new ArrayList<>();
+          }
+          try {
+            return step.call();
+          } finally {
+            advance(progress);
+          }
+        }));
+      }
+
+      List<IRecordedAction> actions = new LinkedList<>();
+      try {
+        for (Future<List<IRecordedAction>> result : results) {
+          actions.addAll(result.get());
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return new LinkedList<>();
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof RuntimeException) {
+          throw (RuntimeException) e.getCause();
+        }
+        throw new SikuliXception("RecordedEventsFlow: compile: " + e.getCause());
+      } finally {
+        for (Future<List<IRecordedAction>> result : results) {
+          result.cancel(false);
         }
+        screenshotMats.clear();
+        screenshotEdges.clear();
+      }
+
+      if (progress != null && progress.isCanceled()) {
+        return new LinkedList<>();
       }
 
       if (!actions.isEmpty()) {
@@ -128,6 +187,16 @@ public class RecordedEventsFlow {
     }
   }
 
+  private int progressCount = 0;
+
+  private void advance(ProgressMonitor progress) {
+    if (progress != null) {
+      synchronized (progress) {
+        progress.setProgress(++progressCount);
+      }
+    }
+  }
+
   private List<IRecordedAction> handleKeyEvent(Long time, NativeKeyEvent event) {
     List<IRecordedAction> actions = new ArrayList<>();
 
@@ -257,8 +326,8 @@ public class RecordedEventsFlow {
   private NativeMouseEvent dragStartEvent = null;
   private int clickCount = 0;
 
-  private List<IRecordedAction> handleMouseEvent(Long time, NativeMouseEvent event) {
-    List<IRecordedAction> actions = new ArrayList<>();
+  private List<Callable<List<IRecordedAction>>> handleMouseEvent(Long time, NativeMouseEvent event) {
+    List<Callable<List<IRecordedAction>>> actions = new ArrayList<>();
 
     Map.Entry<Long, NativeInputEvent> nextEventEntry = getNextEvent(time);
     Long nextTime = nextEventEntry.getKey();
@@ -278,7 +347,7 @@ public class RecordedEventsFlow {
     } else if (NativeMouseEvent.NATIVE_MOUSE_RELEASED == event.getID()) {
       if (dragStartTime != null) {
         try {
-          actions.addAll(handleDragDrop(time, event));
+          actions.add(handleDragDrop(time, event));
         } finally {
           pressedTime = null;
           clickCount = 0;
@@ -291,7 +360,7 @@ public class RecordedEventsFlow {
         if ((nextEvent.getID() != NativeMouseEvent.NATIVE_MOUSE_PRESSED || time - DOUBLE_CLICK_TIME > nextTime
             || clickCount >= 2))
           try {
-            actions.addAll(handleMouseRelease(time, event));
+            actions.add(handleMouseRelease(time, event));
           } finally {
             pressedTime = null;
             clickCount = 0;
@@ -306,13 +375,21 @@ public class RecordedEventsFlow {
     return actions;
   }
 
-  private List<IRecordedAction> handleDragDrop(Long time, NativeMouseEvent event) {
+  private Callable<List<IRecordedAction>> handleDragDrop(Long time, NativeMouseEvent event) {
+    Long dragStartTime = this.dragStartTime;
+    NativeMouseEvent dragStartEvent = this.dragStartEvent;
+    return () -> extractDragDrop(time, event, dragStartTime, dragStartEvent);
+  }
+
+  private List<IRecordedAction> extractDragDrop(Long time, NativeMouseEvent event,
+                                                Long dragStartTime, NativeMouseEvent dragStartEvent) {
     List<IRecordedAction> actions = new ArrayList<>();
 
-    Mat screenshot = readFloorScreenshot(dragStartTime);
+    ScreenshotBuffer.Frame frame = floorScreenshot(dragStartTime);
+    Mat screenshot = getScreenshot(frame);
 
-    Image dragImage = this.findRelevantImage(screenshot, dragStartEvent);
-    Image dropImage = this.findRelevantImage(screenshot, event);
+    Image dragImage = this.findRelevantImage(frame, dragStartEvent);
+    Image dropImage = this.findRelevantImage(frame, event);
 
     if (dragImage != null && dropImage != null) {
       File dragFile = new File(ImagePath.getBundlePath(), dragStartTime + ".png");
@@ -341,13 +418,22 @@ public class RecordedEventsFlow {
     return actions;
   }
 
-  private List<IRecordedAction> handleMouseRelease(Long time, NativeMouseEvent event) {
+  private Callable<List<IRecordedAction>> handleMouseRelease(Long time, NativeMouseEvent event) {
+    Long pressedTime = this.pressedTime;
+    int clickCount = this.clickCount;
+    String[] modifierTexts = getModifierTexts();
+    return () -> extractMouseRelease(time, event, pressedTime, clickCount, modifierTexts);
+  }
+
+  private List<IRecordedAction> extractMouseRelease(Long time, NativeMouseEvent event,
+                                                    Long pressedTime, int clickCount, String[] modifierTexts) {
     List<IRecordedAction> actions = new ArrayList<>();
 
     Long firstMouseMoveEventTime = findFirstMouseMoveTime(pressedTime);
-    Mat screenshot = readCeilingScreenshot(firstMouseMoveEventTime);
+    ScreenshotBuffer.Frame frame = ceilingScreenshot(firstMouseMoveEventTime);
+    Mat screenshot = getScreenshot(frame);
 
-    Image image = findRelevantImage(screenshot, event);
+    Image image = findRelevantImage(frame, event);
 
     if (image != null) {
       File file = new File(ImagePath.getBundlePath(),"" + time + ".png");
@@ -366,11 +452,11 @@ public class RecordedEventsFlow {
       ClickAction clickAction = null;
 
       if (event.getButton() == NativeMouseEvent.BUTTON2 || event.getButton() == NativeMouseEvent.BUTTON3) {
-        clickAction = new RightClickAction(pattern, getModifierTexts());
+        clickAction = new RightClickAction(pattern, modifierTexts);
       } else if (clickCount >= 2) {
-        clickAction = new DoubleClickAction(pattern, getModifierTexts());
+        clickAction = new DoubleClickAction(pattern, modifierTexts);
       } else {
-        clickAction = new ClickAction(pattern, getModifierTexts());
+        clickAction = new ClickAction(pattern, modifierTexts);
       }
 
       actions.add(waitIfNeeded(image, firstMouseMoveEventTime, clickAction));
@@ -382,8 +468,8 @@ public class RecordedEventsFlow {
   private int wheelSteps = 0;
   private Long wheelStartTime = null;
 
-  private List<IRecordedAction> handleMouseWheel(Long time, NativeMouseWheelEvent event) {
-    List<IRecordedAction> actions = new ArrayList<>();
+  private List<Callable<List<IRecordedAction>>> handleMouseWheel(Long time, NativeMouseWheelEvent event) {
+    List<Callable<List<IRecordedAction>>> actions = new ArrayList<>();
 
     if (wheelStartTime == null) {
       wheelStartTime = time;
@@ -398,35 +484,48 @@ public class RecordedEventsFlow {
     NativeMouseWheelEvent nextWheelEvent = findNextWheelEvent(time, direction);
 
     if (nextWheelEvent == null) {
-      Long firstMouseMoveEventTime = findFirstMouseMoveTime(wheelStartTime);
+      Long wheelStartTime = this.wheelStartTime;
+      int wheelSteps = this.wheelSteps;
+      String[] modifierTexts = getModifierTexts();
+      actions.add(() -> extractMouseWheel(time, event, direction, wheelStartTime, wheelSteps, modifierTexts));
 
-      Mat screenshot = readCeilingScreenshot(firstMouseMoveEventTime);
+      this.wheelSteps = 0;
+      this.wheelStartTime = null;
+    }
 
-      Image image = findRelevantImage(screenshot, event);
+    return actions;
+  }
 
-      if (image != null) {
-        File file = new File(ImagePath.getBundlePath(), "" + time + ".png");
+  private List<IRecordedAction> extractMouseWheel(Long time, NativeMouseWheelEvent event, int direction,
+                                                  Long wheelStartTime, int wheelSteps, String[] modifierTexts) {
+    List<IRecordedAction> actions = new ArrayList<>();
 
-        try {
-          ImageIO.write(image.getBufferedImage(), "PNG", file);
-          saveScreenshot(screenshot, file);
-        } catch (IOException e) {
-          e.printStackTrace();
-        }
+    Long firstMouseMoveEventTime = findFirstMouseMoveTime(wheelStartTime);
 
-        Pattern pattern = new Pattern(file.getAbsolutePath());
-        pattern.targetOffset(image.offset());
-        pattern.similar(image.similarity());
+    ScreenshotBuffer.Frame frame = ceilingScreenshot(firstMouseMoveEventTime);
+    Mat screenshot = getScreenshot(frame);
 
-        long stepDelay = (time - wheelStartTime) / wheelSteps;
+    Image image = findRelevantImage(frame, event);
 
-        MouseWheelAction wheelAction = new MouseWheelAction(pattern, direction, wheelSteps, getModifierTexts(), stepDelay);
+    if (image != null) {
+      File file = new File(ImagePath.getBundlePath(), "" + time + ".png");
 
-        actions.add(waitIfNeeded(image, firstMouseMoveEventTime, wheelAction));
+      try {
+        ImageIO.write(image.getBufferedImage(), "PNG", file);
+        saveScreenshot(screenshot, file);
+      } catch (IOException e) {
+        e.printStackTrace();
       }
 
-      wheelSteps = 0;
-      wheelStartTime = null;
+      Pattern pattern = new Pattern(file.getAbsolutePath());
+      pattern.targetOffset(image.offset());
+      pattern.similar(image.similarity());
+
+      long stepDelay = (time - wheelStartTime) / wheelSteps;
+
+      MouseWheelAction wheelAction = new MouseWheelAction(pattern, direction, wheelSteps, modifierTexts, stepDelay);
+
+      actions.add(waitIfNeeded(image, firstMouseMoveEventTime, wheelAction));
     }
 
     return actions;
@@ -449,7 +548,7 @@ public class RecordedEventsFlow {
       lastNonMouseMoveEventTime = events.firstKey();
     }
 
-    Mat lastNonMouseMoveScreenshot = readFloorScreenshot(lastNonMouseMoveEventTime);
+    Mat lastNonMouseMoveScreenshot = getScreenshot(floorScreenshot(lastNonMouseMoveEventTime));
     Finder finder = new Finder(Element.getBufferedImage(lastNonMouseMoveScreenshot));
 
     finder.find(image);
@@ -482,29 +581,48 @@ public class RecordedEventsFlow {
     return events.firstKey();
   }
 
-  private Mat readFloorScreenshot(Long time) {
+  private ScreenshotBuffer.Frame floorScreenshot(Long time) {
     time = Math.min(Math.max(time, screenshots.firstKey()), screenshots.lastKey());
-    return Imgcodecs.imread(screenshots.floorEntry(time).getValue());
+    return screenshots.floorEntry(time).getValue();
   }
 
-  private Mat readCeilingScreenshot(Long time) {
+  private ScreenshotBuffer.Frame ceilingScreenshot(Long time) {
     time = Math.min(Math.max(time, screenshots.firstKey()), screenshots.lastKey());
-    return Imgcodecs.imread(screenshots.ceilingEntry(time).getValue());
+    return screenshots.ceilingEntry(time).getValue();
+  }
+
+  /*
+   * screenshots and their edge maps are read resp. computed only once per compile,
+   * and shared by all actions on the same screenshot
+   */
+  private final Map<ScreenshotBuffer.Frame, Mat> screenshotMats = new ConcurrentHashMap<>();
+  private final Map<ScreenshotBuffer.Frame, Mat> screenshotEdges = new ConcurrentHashMap<>();
+
+  private Mat getScreenshot(ScreenshotBuffer.Frame frame) {
+    return screenshotMats.computeIfAbsent(frame, ScreenshotBuffer.Frame::getMat);
+  }
+
+  private Mat getEdges(ScreenshotBuffer.Frame frame) {
+    return screenshotEdges.computeIfAbsent(frame, f -> {
+      // Use the Canny algorithm to detect edges.
+      // Edges are better for Imgproc.goodFeaturesToTrack()
+      Mat edges = new Mat();
+      Imgproc.Canny(getScreenshot(f), edges, 100, 200);
+      Core.bitwise_not(edges, edges);
+      return edges;
+    });
   }
 
   /*
    * Tries to find the interesting area around a click point. Uses OpenCV to find
    * good features.
    */
-  private Image findRelevantImage(Mat screenshot, NativeMouseEvent event) {
+  private Image findRelevantImage(ScreenshotBuffer.Frame frame, NativeMouseEvent event) {
     int eventX = event.getX();
     int eventY = event.getY();
 
-    // Use the Canny algorithm to detect edges.
-    // Edges are better for Imgproc.goodFeaturesToTrack()
-    Mat edges = new Mat();
-    Imgproc.Canny(screenshot, edges, 100, 200);
-    Core.bitwise_not(edges, edges);
+    Mat screenshot = getScreenshot(frame);
+    Mat edges = getEdges(frame);
 
     int offset = START_SIZE / 2;
     int currentTop = eventY - offset;
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2010-2020, sikuli.org, sikulix.com - MIT license
+ */
+
+package org.sikuli.script.support.recorder;
+
+import org.opencv.core.Mat;
+import org.opencv.imgcodecs.Imgcodecs;
+import org.sikuli.basics.Debug;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the recent screenshots of a recording as Mats in memory.
+ * <br>When more than the given number of frames are kept, the oldest frames
+ * are PNG-encoded into the spill folder on a background thread and
+ * read back from there when needed.
+ * <br>At most maxFrames frames wait for the encoder, if it falls behind,
+ * the recording thread encodes the oldest frame itself (so memory stays bounded).
+ */
+public class ScreenshotBuffer {
+
+  private static String me = "ScreenshotBuffer: ";
+
+  /**
+   * a recorded screenshot (in memory or spilled to disk)
+   */
+  public static class Frame {
+
+    private volatile Mat mat;
+    private volatile String file;
+
+    Frame(Mat mat) {
+      this.mat = mat;
+    }
+
+    /**
+     * @param file a previously saved screenshot
+     */
+    public Frame(String file) {
+      this.file = file;
+    }
+
+    /**
+     * @return the screenshot (empty if no longer available)
+     */
+    public Mat getMat() {
+      Mat content = mat;
+      if (content != null) {
+        return content;
+      }
+      if (file == null) {
+        return new Mat();
+      }
+      return Imgcodecs.imread(file);
+    }
+
+    /**
+     * @return true if the screenshot is kept in memory
+     */
+    public boolean inMemory() {
+      return mat != null;
+    }
+
+    private void spill(File folder) {
+      Mat content = mat;
+      if (content == null) {
+        return;
+      }
+      File spilled = new File(folder, String.format("sikuliximage-%d.png", System.nanoTime()));
+      if (Imgcodecs.imwrite(spilled.getAbsolutePath(), content)) {
+        file = spilled.getAbsolutePath();
+        mat = null;
+      } else {
+        Debug.error(me + "spill: not possible: %s (kept in memory)", spilled);
+      }
+    }
+
+    private void release() {
+      Mat content = mat;
+      mat = null;
+      if (content != null) {
+        content.release();
+      }
+    }
+  }
+
+  private final File spillDir;
+  private final int maxFrames;
+  private final Deque<Frame> inMemory = new ArrayDeque<>();
+  private ExecutorService encoder = null;
+
+  /**
+   * @param spillDir  folder for frames no longer kept in memory
+   * @param maxFrames frames kept in memory (0 = all, nothing is spilled)
+   */
+  public ScreenshotBuffer(File spillDir, int maxFrames) {
+    this.spillDir = spillDir;
+    this.maxFrames = maxFrames;
+  }
+
+  /**
+   * adds a screenshot (the Mat must not be changed afterwards)
+   *
+   * @param mat the screenshot
+   * @return the frame to be used with RecordedEventsFlow.addScreenshot()
+   */
+  public synchronized Frame add(Mat mat) {
+    Frame frame = new Frame(mat);
+    inMemory.addLast(frame);
+    while (maxFrames > 0 && inMemory.size() > maxFrames) {
+      Frame oldest = inMemory.removeFirst();
+      getEncoder().execute(() -> oldest.spill(spillDir));
+    }
+    return frame;
+  }
+
+  private ExecutorService getEncoder() {
+    if (encoder == null) {
+      encoder = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+          new ArrayBlockingQueue<>(Math.max(1, maxFrames)), runnable -> {
+        Thread thread = new Thread(runnable, "SikuliX-RecorderEncoder");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+      }, new ThreadPoolExecutor.CallerRunsPolicy()); // queue full: encoded on the recording thread
+    }
+    return encoder;
+  }
+
+  /**
+   * waits for pending spills (before the spill folder is read or deleted)
+   */
+  public void flush() {
+    ExecutorService pending;
+    synchronized (this) {
+      pending = encoder;
+      encoder = null;
+    }
+    if (pending != null) {
+      pending.shutdown();
+      try {
+        pending.awaitTermination(1, TimeUnit.MINUTES);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * releases the frames kept in memory (they are owned by the buffer, their Mats are released)
+   */
+  public void clear() {
+    flush();
+    synchronized (this) {
+      for (Frame frame : inMemory) {
+        frame.release();
+      }
+      inMemory.clear();
+    }
+  }
+}
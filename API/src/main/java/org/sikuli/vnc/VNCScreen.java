@@ -4,6 +4,7 @@
 package org.sikuli.vnc;
 
 import com.sikulix.vnc.VNCClient;
+import org.opencv.core.Mat;
 import org.sikuli.basics.Debug;
 import org.sikuli.script.FindFailed;
 import org.sikuli.script.Location;
@@ -11,10 +12,14 @@ import org.sikuli.script.Region;
 import org.sikuli.script.ScreenImage;
 import org.sikuli.script.support.IRobot;
 import org.sikuli.script.support.IScreen;
+import org.sikuli.script.support.SXOpenCV;
 import org.sikuli.util.OverlayCapturePrompt;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DirectColorModel;
+import java.lang.reflect.Field;
 import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.util.HashMap;
@@ -24,6 +29,7 @@ public class VNCScreen extends Region implements IScreen {
   private VNCClient client;
   private IRobot robot;
   private ScreenImage lastScreenImage;
+  private final VNCUpdates updates = new VNCUpdates();
 
   private static String stdIP = "127.0.0.1";
   private static int stdPort = 5900;
@@ -95,6 +101,9 @@ public class VNCScreen extends Region implements IScreen {
     port = thePort;
     id = String.format("%s:%d", ip, port);
     client = VNCClient.connect(ip, port, password, true);
+    if (!VNCUpdateHandler.install(client, updates)) {
+      Debug.log(3, "VNCScreen: framebuffer updates not available: scans are polled");
+    }
     robot = new VNCRobot(this);
     setOtherScreen(this);
     setRect(getBounds());
@@ -183,6 +192,13 @@ public class VNCScreen extends Region implements IScreen {
       Debug.log(3, "VNCScreen: stopping: %s", this);
       client.close();
       client = null;
+      updates.close();
+      synchronized (this) {
+        if (currentSnapshot != null) {
+          currentSnapshot.release();
+          currentSnapshot = null;
+        }
+      }
       robot = null;
     }
   }
@@ -221,19 +237,213 @@ public class VNCScreen extends Region implements IScreen {
 
   @Override
   public ScreenImage capture(int x, int y, int w, int h) {
-    if (!isRunning()) {
+    Mat content = captureMat(new Rectangle(x, y, w, h));
+    if (content == null) {
       return null;
     }
-    BufferedImage image = client.getFrameBuffer(x, y, w, h);
-    ScreenImage img = new ScreenImage(
-            new Rectangle(x, y, w, h),
-            image
-    );
+    ScreenImage img = new ScreenImage(new Rectangle(x, y, w, h), content);
     lastScreenImage = img;
     Debug.log(3, "VNCScreen: capture: (%d,%d) %dx%d on %s", x, y, w, h, this);
     return img;
   }
 
+  /**
+   * the framebuffer updates received from the server as a stream of changed rectangles
+   * (e.g. to be informed about changes instead of capturing repeatedly)
+   *
+   * @return the updates of this screen
+   */
+  public VNCUpdates getUpdates() {
+    return updates;
+  }
+
+  @Override
+  public long getUpdateCount() {
+    return updates.isActive() ? updates.getCount() : -1;
+  }
+
+  @Override
+  public Rectangle waitForUpdate(Rectangle area, long since, long timeout) {
+    return updates.waitFor(area, since, timeout);
+  }
+
+  //<editor-fold desc="snapshots">
+  private VNCSnapshot currentSnapshot = null;
+
+  /**
+   * the framebuffer content as of now: as long as no framebuffer update arrives, all snapshots
+   * (and captures) share the same content, that is copied only once per update
+   * <br>the snapshot has to be released after use (try-with-resources)
+   *
+   * @return the snapshot or null if not running
+   */
+  public synchronized VNCSnapshot snapshot() {
+    if (!isRunning()) {
+      return null;
+    }
+    boolean known = updates.isActive();
+    if (known && currentSnapshot != null && currentSnapshot.getGeneration() == updates.getCount()) {
+      return currentSnapshot.retain();
+    }
+    VNCSnapshot snapshot;
+    boolean locked = known && updates.lockFrame();
+    try {
+      long generation = known ? updates.getCount() : -1;
+      Rectangle bounds = getBounds();
+      snapshot = new VNCSnapshot(generation, bounds, makeFrameMat(bounds));
+    } finally {
+      if (locked) {
+        updates.unlockFrame();
+      }
+    }
+    if (currentSnapshot != null) {
+      currentSnapshot.release();
+    }
+    currentSnapshot = snapshot;
+    return snapshot.retain();
+  }
+
+  /**
+   * areas smaller than a quarter of the framebuffer are copied (out of the current snapshot or converted
+   * directly from the framebuffer), so they do not keep the complete framebuffer alive.
+   * <br>larger areas are views of the shared snapshot (no copy)
+   *
+   * @param rect screen coordinates
+   * @return the content (BGR) or null if not running
+   */
+  private Mat captureMat(Rectangle rect) {
+    Rectangle bounds = getBounds();
+    Rectangle area = rect.intersection(bounds);
+    boolean small = (long) area.width * area.height * 4 < (long) bounds.width * bounds.height;
+    if (small) {
+      Mat content = copyArea(area);
+      if (content != null) {
+        return content;
+      }
+    }
+    try (VNCSnapshot snapshot = snapshot()) {
+      if (snapshot == null) {
+        return null;
+      }
+      if (small) {
+        return snapshot.copyMat(rect.x, rect.y, rect.width, rect.height);
+      }
+      return snapshot.getMat(rect.x, rect.y, rect.width, rect.height);
+    }
+  }
+
+  /**
+   * @param area screen coordinates (inside the framebuffer)
+   * @return a copy of the area: from the current snapshot, if it is up to date,
+   * otherwise only the area converted from the framebuffer (null: not possible, use a snapshot)
+   */
+  private synchronized Mat copyArea(Rectangle area) {
+    if (!isRunning()) {
+      return null;
+    }
+    if (area.isEmpty()) {
+      return new Mat();
+    }
+    boolean known = updates.isActive();
+    if (known && currentSnapshot != null && currentSnapshot.getGeneration() == updates.getCount()) {
+      return currentSnapshot.copyMat(area.x, area.y, area.width, area.height);
+    }
+    boolean locked = known && updates.lockFrame();
+    try {
+      Rectangle bounds = getBounds();
+      int[] data = getFrameData(bounds);
+      if (data == null) {
+        return null;
+      }
+      return SXOpenCV.makeMatFromIntRGB(data, bounds.width,
+          new Rectangle(area.x - bounds.x, area.y - bounds.y, area.width, area.height));
+    } finally {
+      if (locked) {
+        updates.unlockFrame();
+      }
+    }
+  }
+
+  /**
+   * the pixel read directly from the framebuffer
+   *
+   * @param x screen coordinates
+   * @param y screen coordinates
+   * @return the pixel as int 0x00RRGGBB
+   */
+  public int getRGB(int x, int y) {
+    BufferedImage frame = getFrameImage();
+    if (frame != null && x >= 0 && y >= 0 && x < frame.getWidth() && y < frame.getHeight()) {
+      return frame.getRGB(x, y) & 0xffffff;
+    }
+    try (VNCSnapshot snapshot = snapshot()) {
+      return snapshot == null ? 0 : snapshot.getRGB(x, y);
+    }
+  }
+
+  private Mat makeFrameMat(Rectangle bounds) {
+    int[] data = getFrameData(bounds);
+    if (data != null) {
+      return SXOpenCV.makeMatFromIntRGB(data, bounds.width, bounds.height);
+    }
+    return SXOpenCV.makeMat(client.getFrameBuffer(bounds.x, bounds.y, bounds.width, bounds.height));
+  }
+
+  /**
+   * @param bounds the framebuffer bounds
+   * @return the live pixels of the framebuffer (int 0x00RRGGBB, row by row) or null if not accessible
+   */
+  private int[] getFrameData(Rectangle bounds) {
+    BufferedImage frame = getFrameImage();
+    if (frame != null && frame.getWidth() == bounds.width && frame.getHeight() == bounds.height
+        && frame.getRaster().getDataBuffer() instanceof DataBufferInt
+        && frame.getColorModel() instanceof DirectColorModel) {
+      DirectColorModel colorModel = (DirectColorModel) frame.getColorModel();
+      int[] data = ((DataBufferInt) frame.getRaster().getDataBuffer()).getData();
+      if (colorModel.getRedMask() == 0xff0000 && colorModel.getGreenMask() == 0xff00
+          && colorModel.getBlueMask() == 0xff && data.length == bounds.width * bounds.height) {
+        return data;
+      }
+    }
+    return null;
+  }
+
+  private static Field clientBuffer = null;
+  private static Field bufferImage = null;
+  private static boolean frameImageFailed = false;
+
+  /**
+   * the VNCClient keeps the framebuffer in a BufferedImage, that is not accessible otherwise
+   *
+   * @return the live framebuffer image or null if not possible
+   */
+  private BufferedImage getFrameImage() {
+    VNCClient vncClient = client;
+    if (frameImageFailed || vncClient == null) {
+      return null;
+    }
+    try {
+      if (clientBuffer == null) {
+        clientBuffer = VNCClient.class.getDeclaredField("buffer");
+        clientBuffer.setAccessible(true);
+      }
+      Object buffer = clientBuffer.get(vncClient);
+      if (buffer == null) {
+        return null;
+      }
+      if (bufferImage == null) {
+        bufferImage = buffer.getClass().getDeclaredField("image");
+        bufferImage.setAccessible(true);
+      }
+      return (BufferedImage) bufferImage.get(buffer);
+    } catch (Exception e) {
+      frameImageFailed = true;
+      Debug.error("VNCScreen: framebuffer not accessible (captures are copied): %s", e);
+      return null;
+    }
+  }
+  //</editor-fold>
+
   @Override
   public int getID() {
     return 0;
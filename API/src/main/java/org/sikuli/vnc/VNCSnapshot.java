@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2010-2020, sikuli.org, sikulix.com - MIT license
+ */
+package org.sikuli.vnc;
+
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+
+import java.awt.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * the content of a VNCScreen's framebuffer at one generation (number of framebuffer updates),
+ * shared by all captures, that are taken as long as the framebuffer does not change.
+ * <pre>
+ * - getMat(): the complete framebuffer as BGR Mat
+ * - getMat(x, y, w, h): a view of an area (no copy, shares the pixels with the snapshot)
+ * - copyMat(x, y, w, h): a copy of an area (does not keep the complete framebuffer alive)
+ * - release() (or close()): when the snapshot is no longer needed
+ * </pre>
+ * the content must not be changed (clone() the Mats before). Views stay valid after release,
+ * the pixels are freed with the last view (so views should only be taken of larger areas).
+ */
+public class VNCSnapshot implements AutoCloseable {
+
+  private final long generation;
+  private final Rectangle bounds;
+  private final Mat mat;
+  private final AtomicInteger references = new AtomicInteger(1);
+
+  VNCSnapshot(long generation, Rectangle bounds, Mat mat) {
+    this.generation = generation;
+    this.bounds = bounds;
+    this.mat = mat;
+  }
+
+  /**
+   * @return the number of framebuffer updates this snapshot contains (-1: updates not known)
+   */
+  public long getGeneration() {
+    return generation;
+  }
+
+  /**
+   * @return the screen area of the snapshot
+   */
+  public Rectangle getBounds() {
+    return new Rectangle(bounds);
+  }
+
+  /**
+   * @return the complete framebuffer (BGR, must not be changed)
+   */
+  public Mat getMat() {
+    return mat;
+  }
+
+  /**
+   * @param x screen coordinates
+   * @param y screen coordinates
+   * @param w width
+   * @param h height
+   * @return a view of the area (clipped to the framebuffer, BGR, must not be changed)
+   */
+  public Mat getMat(int x, int y, int w, int h) {
+    Rectangle area = new Rectangle(x, y, w, h).intersection(bounds);
+    if (area.isEmpty()) {
+      return new Mat();
+    }
+    return mat.submat(new Rect(area.x - bounds.x, area.y - bounds.y, area.width, area.height));
+  }
+
+  /**
+   * @param x screen coordinates
+   * @param y screen coordinates
+   * @param w width
+   * @param h height
+   * @return a copy of the area (clipped to the framebuffer, BGR)
+   */
+  public Mat copyMat(int x, int y, int w, int h) {
+    Mat view = getMat(x, y, w, h);
+    Mat copy = view.clone();
+    view.release();
+    return copy;
+  }
+
+  /**
+   * @param x screen coordinates
+   * @param y screen coordinates
+   * @return the pixel as int 0x00RRGGBB (0 if outside)
+   */
+  public int getRGB(int x, int y) {
+    if (!bounds.contains(x, y)) {
+      return 0;
+    }
+    byte[] bgr = new byte[3];
+    mat.get(y - bounds.y, x - bounds.x, bgr);
+    return ((bgr[2] & 0xff) << 16) | ((bgr[1] & 0xff) << 8) | (bgr[0] & 0xff);
+  }
+
+  /**
+   * one more user of this snapshot (each retain needs a release)
+   *
+   * @return this
+   */
+  public VNCSnapshot retain() {
+    references.incrementAndGet();
+    return this;
+  }
+
+  /**
+   * this user no longer needs the snapshot: with the last release, the snapshot's own reference
+   * to the pixels is dropped
+   */
+  public void release() {
+    if (references.decrementAndGet() == 0) {
+      mat.release();
+    }
+  }
+
+  /**
+   * @return true if nobody uses this snapshot any more
+   */
+  public boolean isReleased() {
+    return references.get() <= 0;
+  }
+
+  @Override
+  public void close() {
+    release();
+  }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2010-2020, sikuli.org, sikulix.com - MIT license
+ */
+package org.sikuli.vnc;
+
+import com.sikulix.vnc.VNCClient;
+import com.tigervnc.rfb.CMsgHandler;
+import com.tigervnc.rfb.CMsgReader;
+import com.tigervnc.rfb.PixelFormat;
+import com.tigervnc.rfb.Point;
+import com.tigervnc.rfb.Rect;
+import com.tigervnc.rfb.ScreenSet;
+import org.sikuli.basics.Debug;
+
+import java.lang.reflect.Field;
+
+/**
+ * INTERNAL: sits between the message reader and the VNCClient and reports the rectangles
+ * of each FramebufferUpdate to VNCUpdates (everything else is passed to the client as is)
+ */
+class VNCUpdateHandler extends CMsgHandler {
+
+  private static String me = "VNCUpdateHandler: ";
+
+  private final VNCClient client;
+  private final VNCUpdates updates;
+
+  private VNCUpdateHandler(VNCClient client, VNCUpdates updates) {
+    this.client = client;
+    this.updates = updates;
+    cp = client.cp;
+  }
+
+  /**
+   * the client must be connected (reader available) and its messages not yet processed
+   *
+   * @param client  the VNCClient
+   * @param updates receives the updates
+   * @return false if not possible (updates are not reported)
+   */
+  static boolean install(VNCClient client, VNCUpdates updates) {
+    CMsgReader reader = client.reader();
+    if (reader == null) {
+      return false;
+    }
+    try {
+      Field handler = CMsgReader.class.getDeclaredField("handler");
+      handler.setAccessible(true);
+      handler.set(reader, new VNCUpdateHandler(client, updates));
+      updates.setActive();
+      return true;
+    } catch (Exception e) {
+      Debug.error(me + "not possible: %s", e);
+      return false;
+    }
+  }
+
+  @Override
+  public void framebufferUpdateStart() {
+    updates.updateStart();
+    client.framebufferUpdateStart();
+  }
+
+  @Override
+  public void framebufferUpdateEnd() {
+    client.framebufferUpdateEnd();
+    updates.updateEnd();
+  }
+
+  @Override
+  public void beginRect(Rect r, int encoding) {
+    client.beginRect(r, encoding);
+  }
+
+  @Override
+  public void endRect(Rect r, int encoding) {
+    client.endRect(r, encoding);
+    updates.changed(r.tl.x, r.tl.y, r.width(), r.height());
+  }
+
+  @Override
+  public void fillRect(Rect r, int pix) {
+    client.fillRect(r, pix);
+  }
+
+  @Override
+  public void imageRect(Rect r, Object pixels) {
+    client.imageRect(r, pixels);
+  }
+
+  @Override
+  public void copyRect(Rect r, int srcX, int srcY) {
+    client.copyRect(r, srcX, srcY);
+  }
+
+  @Override
+  public void setDesktopSize(int w, int h) {
+    client.setDesktopSize(w, h);
+    updates.changed(0, 0, w, h);
+  }
+
+  @Override
+  public void setExtendedDesktopSize(int reason, int result, int w, int h, ScreenSet layout) {
+    client.setExtendedDesktopSize(reason, result, w, h, layout);
+    updates.changed(0, 0, w, h);
+  }
+
+  @Override
+  public void setPixelFormat(PixelFormat pf) {
+    client.setPixelFormat(pf);
+  }
+
+  @Override
+  public void setName(String name) {
+    client.setName(name);
+  }
+
+  @Override
+  public void fence(int flags, int len, byte[] data) {
+    client.fence(flags, len, data);
+  }
+
+  @Override
+  public void endOfContinuousUpdates() {
+    client.endOfContinuousUpdates();
+  }
+
+  @Override
+  public void clientRedirect(int port, String host, String x509subject) {
+    client.clientRedirect(port, host, x509subject);
+  }
+
+  @Override
+  public void setCursor(int width, int height, Point hotspot, int[] data, byte[] mask) {
+    client.setCursor(width, height, hotspot, data, mask);
+  }
+
+  @Override
+  public void serverInit() {
+    client.serverInit();
+  }
+
+  @Override
+  public void setColourMapEntries(int firstColour, int nColours, int[] rgbs) {
+    client.setColourMapEntries(firstColour, nColours, rgbs);
+  }
+
+  @Override
+  public void bell() {
+    client.bell();
+  }
+
+  @Override
+  public void serverCutText(String str, int len) {
+    client.serverCutText(str, len);
+  }
+
+  @Override
+  public PixelFormat getPreferredPF() {
+    return client.getPreferredPF();
+  }
+}
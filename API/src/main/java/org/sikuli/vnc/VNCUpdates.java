@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2010-2020, sikuli.org, sikulix.com - MIT license
+ */
+package org.sikuli.vnc;
+
+import org.sikuli.basics.Debug;
+
+import java.awt.*;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * the framebuffer updates of a VNCScreen as a stream of changed rectangles.
+ * <br>each FramebufferUpdate message received from the server counts as one update,
+ * the recent updates are kept, so a scan can ask for the changes after the update it has seen.
+ * <pre>
+ * - getCount(): the number of updates received so far
+ * - waitFor(area, since, timeout): sleeps until an update after since changed something in area
+ * - addListener(listener): called on the VNC message thread after each update
+ * </pre>
+ */
+public class VNCUpdates {
+
+  private static String me = "VNCUpdates: ";
+
+  private static final int HISTORY = 256; // updates kept for getChanged()
+
+  /**
+   * receives the changed rectangles of each framebuffer update
+   */
+  public interface Listener {
+    /**
+     * called on the VNC message thread: should return quickly
+     *
+     * @param count   the number of this update
+     * @param changed the changed rectangles (screen coordinates)
+     */
+    void updated(long count, List<Rectangle> changed);
+  }
+
+  private static class Update {
+    final long count;
+    final Rectangle[] changed;
+
+    Update(long count, Rectangle[] changed) {
+      this.count = count;
+      this.changed = changed;
+    }
+  }
+
+  private final ArrayDeque<Update> history = new ArrayDeque<>();
+  private final List<Rectangle> pending = new ArrayList<>();
+  private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+  private long count = 0;
+  private boolean active = false;
+  private boolean closed = false;
+
+  //held by the VNC message thread while an update is written to the framebuffer
+  private final ReentrantReadWriteLock frameLock = new ReentrantReadWriteLock();
+
+  void updateStart() {
+    if (!frameLock.isWriteLockedByCurrentThread()) {
+      frameLock.writeLock().lock();
+    }
+  }
+
+  /**
+   * the framebuffer is not changed until unlockFrame (waits at most a second for a running update)
+   *
+   * @return false if an update did not end in time
+   */
+  boolean lockFrame() {
+    try {
+      return frameLock.readLock().tryLock(1, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  void unlockFrame() {
+    frameLock.readLock().unlock();
+  }
+
+  /**
+   * @return true if the updates are reported by the VNC client
+   */
+  public synchronized boolean isActive() {
+    return active && !closed;
+  }
+
+  synchronized void setActive() {
+    active = true;
+  }
+
+  /**
+   * @return the number of framebuffer updates received so far
+   */
+  public synchronized long getCount() {
+    return count;
+  }
+
+  public void addListener(Listener listener) {
+    listeners.add(listener);
+  }
+
+  public void removeListener(Listener listener) {
+    listeners.remove(listener);
+  }
+
+  synchronized void changed(int x, int y, int w, int h) {
+    if (w > 0 && h > 0) {
+      pending.add(new Rectangle(x, y, w, h));
+    }
+  }
+
+  void updateEnd() {
+    Update update = null;
+    synchronized (this) {
+      if (!pending.isEmpty()) {
+        update = new Update(++count, pending.toArray(new Rectangle[0]));
+        pending.clear();
+        history.addLast(update);
+        if (history.size() > HISTORY) {
+          history.removeFirst();
+        }
+        notifyAll();
+      }
+    }
+    if (frameLock.isWriteLockedByCurrentThread()) {
+      frameLock.writeLock().unlock();
+    }
+    if (update == null) {
+      return;
+    }
+    for (Listener listener : listeners) {
+      try {
+        listener.updated(update.count, Arrays.asList(update.changed));
+      } catch (Exception e) {
+        Debug.error(me + "listener: %s", e);
+      }
+    }
+  }
+
+  synchronized void close() {
+    closed = true;
+    notifyAll();
+  }
+
+  /**
+   * @param area  screen coordinates
+   * @param since the update count seen before
+   * @return the bounds of the changes in area after the given update (clipped to area),
+   * the area if the updates are no longer known, null if nothing changed
+   */
+  public synchronized Rectangle getChanged(Rectangle area, long since) {
+    if (since >= count) {
+      return null;
+    }
+    if (closed || history.isEmpty() || history.getFirst().count > since + 1) {
+      return new Rectangle(area);
+    }
+    Rectangle changed = null;
+    for (Update update : history) {
+      if (update.count <= since) {
+        continue;
+      }
+      for (Rectangle rect : update.changed) {
+        Rectangle inArea = rect.intersection(area);
+        if (!inArea.isEmpty()) {
+          changed = changed == null ? inArea : changed.union(inArea);
+        }
+      }
+    }
+    return changed;
+  }
+
+  /**
+   * sleeps until an update after the given one changed something in the area
+   *
+   * @param area    screen coordinates
+   * @param since   the update count seen before
+   * @param timeout milliseconds (0 or less: only check)
+   * @return the bounds of the changes in area (see getChanged()), null if nothing changed until timeout
+   */
+  public synchronized Rectangle waitFor(Rectangle area, long since, long timeout) {
+    long until = System.currentTimeMillis() + timeout;
+    while (true) {
+      Rectangle changed = getChanged(area, since);
+      if (changed != null) {
+        return changed;
+      }
+      if (closed) {
+        return new Rectangle(area);
+      }
+      long wait = until - System.currentTimeMillis();
+      if (wait <= 0) {
+        return null;
+      }
+      try {
+        wait(wait);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return null;
+      }
+    }
+  }
+}
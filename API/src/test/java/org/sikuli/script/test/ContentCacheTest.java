@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) 2010-2020, sikuli.org, sikulix.com - MIT license
+ */
+
+package org.sikuli.script.test;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.*;
+import org.junit.runners.MethodSorters;
+import org.sikuli.basics.Settings;
+import org.sikuli.script.support.ContentCache;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * ContentCache against an in-process HTTP server and a local jar (no screen needed)
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class ContentCacheTest {
+
+  private static HttpServer server = null;
+  private static URL base = null;
+  private static final Map<String, byte[]> contents = new HashMap<>();
+  private static final AtomicInteger requests = new AtomicInteger();
+  private static final AtomicInteger notModified = new AtomicInteger();
+
+  private static File folder = null;
+  private static boolean savedCaching;
+  private static String savedFolder;
+  private static double savedMaxAge;
+  private static int savedMaxMB;
+
+  @BeforeClass
+  public static void setUpClass() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext("/images/", exchange -> {
+      requests.incrementAndGet();
+      String name = exchange.getRequestURI().getPath().substring("/images/".length());
+      byte[] content = contents.get(name);
+      if (content == null) {
+        exchange.sendResponseHeaders(404, -1);
+        exchange.close();
+        return;
+      }
+      String etag = "\"" + Arrays.hashCode(content) + "\"";
+      if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+        notModified.incrementAndGet();
+        exchange.sendResponseHeaders(304, -1);
+        exchange.close();
+        return;
+      }
+      exchange.getResponseHeaders().add("ETag", etag);
+      exchange.sendResponseHeaders(200, content.length);
+      try (OutputStream body = exchange.getResponseBody()) {
+        body.write(content);
+      }
+    });
+    server.start();
+    base = new URL("http://127.0.0.1:" + server.getAddress().getPort() + "/images");
+    folder = Files.createTempDirectory("ContentCacheTest").toFile();
+    savedCaching = Settings.ContentCaching;
+    savedFolder = Settings.ContentCacheFolder;
+    savedMaxAge = Settings.ContentCacheMaxAge;
+    savedMaxMB = Settings.ContentCacheMaxMB;
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+    server.stop(0);
+    ContentCache.clear();
+    folder.delete();
+    Settings.ContentCaching = savedCaching;
+    Settings.ContentCacheFolder = savedFolder;
+    Settings.ContentCacheMaxAge = savedMaxAge;
+    Settings.ContentCacheMaxMB = savedMaxMB;
+  }
+
+  @Before
+  public void setUp() {
+    Settings.ContentCaching = true;
+    Settings.ContentCacheFolder = folder.getAbsolutePath();
+    Settings.ContentCacheMaxAge = 0;
+    Settings.ContentCacheMaxMB = 256;
+    ContentCache.clear();
+    contents.clear();
+    requests.set(0);
+    notModified.set(0);
+  }
+
+  private static byte[] makeContent(int size, int seed) {
+    byte[] content = new byte[size];
+    new Random(seed).nextBytes(content);
+    return content;
+  }
+
+  private static String[] list(String suffix) {
+    return folder.list((dir, name) -> name.endsWith(suffix));
+  }
+
+  @Test
+  public void test010_ConditionalGet() throws IOException {
+    contents.put("a.png", makeContent(1000, 1));
+    URL url = ContentCache.makeURL(base, "a.png");
+    assertArrayEquals(contents.get("a.png"), ContentCache.get(url));
+    assertEquals("first get", 1, requests.get());
+    assertArrayEquals(contents.get("a.png"), ContentCache.get(url));
+    assertEquals("revalidated", 2, requests.get());
+    assertEquals("not modified (304)", 1, notModified.get());
+    contents.put("a.png", makeContent(1000, 2));
+    assertArrayEquals("changed (200)", contents.get("a.png"), ContentCache.get(url));
+    assertEquals(1, notModified.get());
+  }
+
+  @Test
+  public void test020_MaxAge() throws IOException {
+    contents.put("a.png", makeContent(1000, 1));
+    URL url = ContentCache.makeURL(base, "a.png");
+    assertNull("not cached yet", ContentCache.findFresh(base, "a.png"));
+    ContentCache.get(url);
+    assertNull("max age 0: revalidate", ContentCache.findFresh(base, "a.png"));
+    Settings.ContentCacheMaxAge = 60;
+    assertEquals(url, ContentCache.findFresh(base, "a.png"));
+    assertArrayEquals(contents.get("a.png"), ContentCache.get(url));
+    assertEquals("fresh: no request", 1, requests.get());
+  }
+
+  @Test
+  public void test030_NotReachable() throws IOException {
+    contents.put("a.png", makeContent(1000, 1));
+    URL url = ContentCache.makeURL(base, "a.png");
+    ContentCache.get(url);
+    byte[] cached = contents.remove("a.png");
+    assertArrayEquals("404: cached content", cached, ContentCache.get(url));
+    try {
+      ContentCache.get(ContentCache.makeURL(base, "b.png"));
+      fail("neither cached nor loadable");
+    } catch (IOException e) {
+    }
+  }
+
+  @Test
+  public void test040_Eviction() throws IOException {
+    Settings.ContentCacheMaxMB = 1;
+    List<URL> urls = new ArrayList<>();
+    for (int n = 0; n < 6; n++) {
+      contents.put("e" + n + ".png", makeContent(300 * 1024, 10 + n));
+      urls.add(ContentCache.makeURL(base, "e" + n + ".png"));
+    }
+    for (URL url : urls) {
+      ContentCache.get(url);
+    }
+    long bytes = 0;
+    for (String name : list(".content")) {
+      bytes += new File(folder, name).length();
+    }
+    assertTrue("within budget: " + bytes, bytes <= 1024 * 1024);
+    assertTrue("evicted", list(".content").length < urls.size());
+    assertEquals("meta evicted with content", list(".content").length, list(".meta").length);
+    assertArrayEquals("last one kept", contents.get("e5.png"), ContentCache.get(urls.get(5)));
+    requests.set(0);
+    notModified.set(0);
+    assertArrayEquals("evicted: loaded again", contents.get("e0.png"), ContentCache.get(urls.get(0)));
+    assertEquals(1, requests.get());
+    assertEquals("loaded again (200)", 0, notModified.get());
+  }
+
+  private static void writeJar(File jar, byte[] content) throws IOException {
+    try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(jar))) {
+      ZipEntry entry = new ZipEntry("images/a.png");
+      entry.setMethod(ZipEntry.STORED);
+      entry.setSize(content.length);
+      CRC32 crc = new CRC32();
+      crc.update(content);
+      entry.setCrc(crc.getValue());
+      entry.setTime(0);
+      zip.putNextEntry(entry);
+      zip.write(content);
+      zip.closeEntry();
+    }
+  }
+
+  @Test
+  public void test050_JarTimestamp() throws IOException {
+    File jar = new File(folder.getParentFile(), "ContentCacheTest-" + System.nanoTime() + ".jar");
+    try {
+      byte[] first = makeContent(1000, 1);
+      writeJar(jar, first);
+      long time = jar.lastModified();
+      URL url = new URL("jar:" + jar.toURI().toURL() + "!/images/a.png");
+      assertArrayEquals(first, ContentCache.get(url));
+      byte[] second = makeContent(1000, 2);
+      writeJar(jar, second);
+      jar.setLastModified(time);
+      assertArrayEquals("same jar time and size: cached", first, ContentCache.get(url));
+      jar.setLastModified(time - 10000);
+      assertArrayEquals("other jar time: loaded again", second, ContentCache.get(url));
+    } finally {
+      jar.delete();
+    }
+  }
+}
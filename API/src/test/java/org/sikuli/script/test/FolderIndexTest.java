@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2010-2020, sikuli.org, sikulix.com - MIT license
+ */
+
+package org.sikuli.script.test;
+
+import org.junit.*;
+import org.junit.runners.MethodSorters;
+import org.sikuli.basics.Settings;
+import org.sikuli.script.support.FolderIndex;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.*;
+
+/**
+ * FolderIndex with files in a temp folder (changes reported by the WatchService, no screen needed)
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class FolderIndexTest {
+
+  private static File folder = null;
+  private static boolean savedIndex;
+  private static double savedPollInterval;
+
+  @BeforeClass
+  public static void setUpClass() throws IOException {
+    folder = Files.createTempDirectory("FolderIndexTest").toFile();
+    savedIndex = Settings.ImageFolderIndex;
+    savedPollInterval = Settings.ImageFolderPollInterval;
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+    Settings.ImageFolderIndex = savedIndex;
+    Settings.ImageFolderPollInterval = savedPollInterval;
+    File[] files = folder.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        file.delete();
+      }
+    }
+    folder.delete();
+    FolderIndex.invalidate(null);
+  }
+
+  @Before
+  public void setUp() {
+    Settings.ImageFolderIndex = true;
+    Settings.ImageFolderPollInterval = 2.0;
+    FolderIndex.invalidate(null);
+  }
+
+  /**
+   * the index is updated by the watcher thread: wait some time for it
+   */
+  private static boolean eventually(BooleanSupplier condition) throws InterruptedException {
+    long until = System.currentTimeMillis() + 10000;
+    while (System.currentTimeMillis() < until) {
+      if (condition.getAsBoolean()) {
+        return true;
+      }
+      Thread.sleep(20);
+    }
+    return condition.getAsBoolean();
+  }
+
+  @Test
+  public void test010_Create() throws IOException, InterruptedException {
+    File file = new File(folder, "created.png");
+    assertFalse(FolderIndex.exists(file));
+    assertEquals(0, FolderIndex.lastModified(file));
+    Files.write(file.toPath(), new byte[]{1, 2, 3});
+    assertTrue("created: reported", eventually(() -> FolderIndex.exists(file)));
+    assertEquals(file.lastModified(), FolderIndex.lastModified(file));
+  }
+
+  @Test
+  public void test020_Delete() throws IOException, InterruptedException {
+    File file = new File(folder, "deleted.png");
+    Files.write(file.toPath(), new byte[]{1, 2, 3});
+    assertTrue(FolderIndex.exists(file));
+    assertTrue(file.delete());
+    assertTrue("deleted: reported", eventually(() -> !FolderIndex.exists(file)));
+    assertEquals(0, FolderIndex.lastModified(file));
+  }
+
+  @Test
+  public void test030_Modify() throws IOException, InterruptedException {
+    File file = new File(folder, "modified.png");
+    Files.write(file.toPath(), new byte[]{1, 2, 3});
+    file.setLastModified(file.lastModified() - 60000);
+    long before = file.lastModified();
+    assertEquals(before, FolderIndex.lastModified(file));
+    Files.write(file.toPath(), new byte[]{4, 5, 6, 7});
+    long after = file.lastModified();
+    assertNotEquals(before, after);
+    assertTrue("modified: reported", eventually(() -> FolderIndex.lastModified(file) == after));
+  }
+
+  @Test
+  public void test040_Invalidate() throws IOException {
+    File file = new File(folder, "invalidated.png");
+    assertFalse(FolderIndex.exists(file));
+    Files.write(file.toPath(), new byte[]{1, 2, 3});
+    FolderIndex.invalidate(folder);
+    assertTrue("listed again", FolderIndex.exists(file));
+  }
+
+  @Test
+  public void test050_NegativeLookup() throws InterruptedException {
+    assertTrue("first miss: check", FolderIndex.shouldCheckMissing("missing.png"));
+    assertFalse("again within the poll interval: no check", FolderIndex.shouldCheckMissing("missing.png"));
+    assertTrue("other name: check", FolderIndex.shouldCheckMissing("other.png"));
+    FolderIndex.invalidate(null);
+    assertTrue("all invalidated: check", FolderIndex.shouldCheckMissing("missing.png"));
+    Settings.ImageFolderPollInterval = 0.05;
+    Thread.sleep(100);
+    assertTrue("poll interval passed: check", FolderIndex.shouldCheckMissing("missing.png"));
+  }
+
+  @Test
+  public void test060_NoIndex() throws IOException {
+    Settings.ImageFolderIndex = false;
+    File file = new File(folder, "direct.png");
+    assertFalse(FolderIndex.exists(file));
+    Files.write(file.toPath(), new byte[]{1, 2, 3});
+    assertTrue("no index: file system", FolderIndex.exists(file));
+    assertEquals(file.lastModified(), FolderIndex.lastModified(file));
+  }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2010-2020, sikuli.org, sikulix.com - MIT license
+ */
+
+package org.sikuli.script.test;
+
+import org.junit.*;
+import org.junit.runners.MethodSorters;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Scalar;
+import org.opencv.imgcodecs.Imgcodecs;
+import org.sikuli.basics.Settings;
+import org.sikuli.script.Element;
+import org.sikuli.script.Image;
+import org.sikuli.script.support.RunTime;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+/**
+ * the image cache with images in a temp folder (no screen needed)
+ * <br>each image has 400 x 400 x 3 = 480000 bytes, so 2 of them fit into a budget of 1 MB
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class ImageCacheTest {
+
+  private static File folder = null;
+  private static int savedMaxMB;
+  private static boolean savedCaching;
+
+  @BeforeClass
+  public static void setUpClass() throws IOException {
+    RunTime.loadLibrary(RunTime.libOpenCV);
+    folder = Files.createTempDirectory("ImageCacheTest").toFile();
+    savedMaxMB = Settings.ImageCacheMaxMB;
+    savedCaching = Settings.ImageCaching;
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+    Element.resetCache();
+    Settings.ImageCacheMaxMB = savedMaxMB;
+    Settings.ImageCaching = savedCaching;
+    File[] files = folder.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        file.delete();
+      }
+    }
+    folder.delete();
+  }
+
+  @Before
+  public void setUp() {
+    Settings.ImageCaching = true;
+    Settings.ImageCacheMaxMB = 1;
+    Element.resetCache();
+  }
+
+  private static Image makeImage(String name, int blue) {
+    File file = new File(folder, name + ".png");
+    Imgcodecs.imwrite(file.getPath(), new Mat(400, 400, CvType.CV_8UC3, new Scalar(blue, 10, 10)));
+    return Image.create(file.getPath());
+  }
+
+  private static boolean isCached(Image image) {
+    return Element.getCache().containsKey(image.url());
+  }
+
+  @Test
+  public void test010_Budget() {
+    for (int n = 0; n < 4; n++) {
+      assertTrue(makeImage("b" + n, n * 50).isValid());
+    }
+    Element.CacheStats stats = Element.getCacheStats();
+    assertTrue("within budget: " + stats, stats.bytes() <= 1024 * 1024);
+    assertEquals(stats.toString(), 2, stats.entries());
+    assertEquals(stats.toString(), 2, stats.evictions());
+  }
+
+  @Test
+  public void test020_EvictionOrder() {
+    Image first = makeImage("o0", 0);
+    Image second = makeImage("o1", 50);
+    assertFalse(first.getContent().empty()); // first is now the most recently used
+    Image third = makeImage("o2", 100);
+    assertTrue("recently used: kept", isCached(first));
+    assertFalse("least recently used: evicted", isCached(second));
+    assertTrue(isCached(third));
+    long misses = Element.getCacheStats().misses();
+    assertFalse("evicted: loaded again", second.getContent().empty());
+    assertEquals(misses + 1, Element.getCacheStats().misses());
+  }
+
+  @Test
+  public void test030_Pinning() {
+    Image pinned = makeImage("p0", 0);
+    assertTrue(Element.cachePin(pinned));
+    Image other = makeImage("p1", 50);
+    assertTrue(Element.cachePin(other));
+    Image third = makeImage("p2", 100);
+    assertTrue("pinned: kept", isCached(pinned));
+    assertTrue("pinned: kept", isCached(other));
+    assertTrue("just loaded: kept", isCached(third));
+    assertTrue("pinned: over budget", Element.getCacheStats().bytes() > 1024 * 1024);
+    assertTrue(Element.cacheUnpin(pinned));
+    assertFalse("unpinned: evicted", isCached(pinned));
+    assertTrue(Element.getCacheStats().bytes() <= 1024 * 1024);
+    assertEquals(1, Element.getCacheStats().pinned());
+  }
+
+  @Test
+  public void test040_EvictedContentStaysUsable() {
+    Image held = makeImage("h0", 0);
+    Mat content = held.getContent();
+    makeImage("h1", 50);
+    makeImage("h2", 100);
+    assertTrue(Element.getCacheStats().evictions() > 0);
+    assertFalse("evicted Mat still usable", content.empty());
+    assertEquals(400, content.rows());
+  }
+
+  @Test
+  public void test050_Failed() throws IOException {
+    Image image = makeImage("f0", 0);
+    Element.resetCache();
+    File file = new File(folder, "f0.png");
+    Files.write(file.toPath(), "not an image".getBytes());
+    file.setLastModified(file.lastModified() - 10000);
+    assertTrue("not loadable", image.getContent().empty());
+    long misses = Element.getCacheStats().misses();
+    assertTrue("file not changed: not loaded again", image.getContent().empty());
+    assertEquals(misses, Element.getCacheStats().misses());
+    Imgcodecs.imwrite(file.getPath(), new Mat(400, 400, CvType.CV_8UC3, new Scalar(0, 10, 10)));
+    file.setLastModified(file.lastModified() + 10000);
+    assertFalse("file changed: loaded again", image.getContent().empty());
+    assertEquals(misses + 1, Element.getCacheStats().misses());
+  }
+}
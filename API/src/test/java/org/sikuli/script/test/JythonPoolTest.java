@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2010-2020, sikuli.org, sikulix.com - MIT license
+ */
+
+package org.sikuli.script.test;
+
+import org.junit.*;
+import org.junit.runners.MethodSorters;
+import org.sikuli.basics.Settings;
+import org.sikuli.script.ImagePath;
+import org.sikuli.script.runnerSupport.JythonSupport;
+import org.sikuli.script.support.FindExecutor;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * the pool of Jython interpreters (Settings.JythonPoolSize) with the thread's own ImagePath
+ * (no scripts are run, no screen needed)
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class JythonPoolTest {
+
+  private static int savedPoolSize;
+  private static File bundle = null;
+
+  @BeforeClass
+  public static void setUpClass() throws IOException {
+    savedPoolSize = Settings.JythonPoolSize;
+    Settings.JythonPoolSize = 1;
+    bundle = Files.createTempDirectory("JythonPoolTest").toFile();
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+    JythonSupport.closePool();
+    Settings.JythonPoolSize = savedPoolSize;
+    bundle.delete();
+  }
+
+  private static String bundlePathOnNewThread() throws InterruptedException {
+    AtomicReference<String> path = new AtomicReference<>();
+    Thread thread = new Thread(() -> path.set(ImagePath.getBundlePath()));
+    thread.start();
+    thread.join();
+    return path.get();
+  }
+
+  @Test
+  public void test010_Lease() {
+    assertTrue(JythonSupport.isPoolEnabled());
+    JythonSupport worker = JythonSupport.lease();
+    assertNotNull(worker);
+    try {
+      assertSame("leased on this thread", worker, JythonSupport.get());
+      assertNotNull(worker.interpreterGet());
+    } finally {
+      worker.giveBack();
+    }
+    assertNotSame("given back: the singleton", worker, JythonSupport.get());
+    JythonSupport again = JythonSupport.lease();
+    try {
+      assertSame("reused from the pool", worker, again);
+    } finally {
+      again.giveBack();
+    }
+  }
+
+  @Test
+  public void test020_WaitForGiveBack() throws InterruptedException {
+    JythonSupport worker = JythonSupport.lease();
+    AtomicReference<JythonSupport> other = new AtomicReference<>();
+    Thread waiting = new Thread(() -> {
+      JythonSupport leased = JythonSupport.lease();
+      other.set(leased);
+      if (leased != null) {
+        leased.giveBack();
+      }
+    });
+    waiting.start();
+    waiting.join(500);
+    assertTrue("pool size 1: waits", waiting.isAlive());
+    assertNull(other.get());
+    worker.giveBack();
+    waiting.join(5000);
+    assertFalse(waiting.isAlive());
+    assertSame("got the one given back", worker, other.get());
+  }
+
+  @Test
+  public void test030_Abort() throws InterruptedException {
+    AtomicReference<JythonSupport> leased = new AtomicReference<>();
+    Object lock = new Object();
+    Thread runThread = new Thread(() -> {
+      JythonSupport worker = JythonSupport.lease();
+      leased.set(worker);
+      synchronized (lock) {
+        lock.notifyAll();
+        try {
+          lock.wait(5000);
+        } catch (InterruptedException e) {
+        }
+      }
+      worker.giveBack();
+    });
+    synchronized (lock) {
+      runThread.start();
+      lock.wait(60000);
+    }
+    JythonSupport worker = leased.get();
+    assertNotNull(worker);
+    assertFalse(worker.isAborted());
+    JythonSupport.abortPooled(Thread.currentThread());
+    assertFalse("other thread: not aborted", worker.isAborted());
+    JythonSupport.abortPooled(runThread);
+    assertTrue(worker.isAborted());
+    synchronized (lock) {
+      lock.notifyAll();
+    }
+    runThread.join();
+    JythonSupport again = JythonSupport.lease();
+    try {
+      assertSame(worker, again);
+      assertFalse("leased again: not aborted", again.isAborted());
+    } finally {
+      again.giveBack();
+    }
+  }
+
+  @Test
+  public void test040_OwnImagePath() throws InterruptedException {
+    String shared = ImagePath.getBundlePath();
+    JythonSupport worker = JythonSupport.lease();
+    try {
+      assertTrue(ImagePath.setBundlePath(bundle.getAbsolutePath()));
+      assertEquals(bundle.getAbsolutePath(), new File(ImagePath.getBundlePath()).getAbsolutePath());
+      String inherited = bundlePathOnNewThread();
+      assertNotNull("started thread: inherited", inherited);
+      assertEquals(bundle.getAbsolutePath(), new File(inherited).getAbsolutePath());
+      AtomicReference<String> onFindThread = new AtomicReference<>();
+      FindExecutor.invokeAll(Arrays.asList(
+          () -> onFindThread.getAndSet(ImagePath.getBundlePath()),
+          () -> onFindThread.getAndSet(ImagePath.getBundlePath())));
+      assertEquals("find threads: shared", shared, onFindThread.get());
+    } finally {
+      worker.giveBack();
+    }
+    assertEquals("given back: shared", shared, ImagePath.getBundlePath());
+  }
+}
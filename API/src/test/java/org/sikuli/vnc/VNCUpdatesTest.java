@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2010-2020, sikuli.org, sikulix.com - MIT license
+ */
+
+package org.sikuli.vnc;
+
+import org.junit.*;
+import org.junit.runners.MethodSorters;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * VNCUpdates fed directly as VNCUpdateHandler does it (no VNC server or display needed)
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class VNCUpdatesTest {
+
+  private VNCUpdates updates;
+  private final Rectangle area = new Rectangle(100, 100, 200, 100);
+
+  @Before
+  public void setUp() {
+    updates = new VNCUpdates();
+    updates.setActive();
+  }
+
+  private void update(Rectangle... rects) {
+    updates.updateStart();
+    for (Rectangle rect : rects) {
+      updates.changed(rect.x, rect.y, rect.width, rect.height);
+    }
+    updates.updateEnd();
+  }
+
+  private Thread later(long millis, Runnable action) {
+    Thread thread = new Thread(() -> {
+      try {
+        Thread.sleep(millis);
+      } catch (InterruptedException e) {
+        return;
+      }
+      action.run();
+    });
+    thread.start();
+    return thread;
+  }
+
+  @Test
+  public void test010_Count() {
+    assertTrue(updates.isActive());
+    assertEquals(0, updates.getCount());
+    update();
+    assertEquals("nothing changed: no update", 0, updates.getCount());
+    update(new Rectangle(0, 0, 0, 10));
+    assertEquals("empty rectangle: no update", 0, updates.getCount());
+    update(new Rectangle(0, 0, 10, 10), new Rectangle(20, 20, 10, 10));
+    assertEquals(1, updates.getCount());
+    assertTrue("frame not locked after the update", updates.lockFrame());
+    updates.unlockFrame();
+  }
+
+  @Test
+  public void test020_Changed() {
+    long since = updates.getCount();
+    assertNull("no update", updates.getChanged(area, since));
+    update(new Rectangle(0, 0, 50, 50));
+    assertNull("outside of area", updates.getChanged(area, since));
+    update(new Rectangle(250, 150, 100, 100));
+    assertEquals("clipped to area", new Rectangle(250, 150, 50, 50), updates.getChanged(area, since));
+    update(new Rectangle(120, 110, 10, 10));
+    assertEquals("union of all updates after since", new Rectangle(120, 110, 180, 90),
+        updates.getChanged(area, since));
+    assertEquals("only updates after since", new Rectangle(120, 110, 10, 10),
+        updates.getChanged(area, updates.getCount() - 1));
+    assertNull("nothing after the last update", updates.getChanged(area, updates.getCount()));
+  }
+
+  @Test
+  public void test030_HistoryOverflow() {
+    for (int n = 0; n < 300; n++) {
+      update(new Rectangle(0, 0, 10, 10));
+    }
+    assertEquals(300, updates.getCount());
+    assertEquals("first updates no longer known: the area", area, updates.getChanged(area, 0));
+    assertNull("recent updates known: outside of area", updates.getChanged(area, 290));
+    update(new Rectangle(110, 110, 10, 10));
+    assertEquals(new Rectangle(110, 110, 10, 10), updates.getChanged(area, 290));
+  }
+
+  @Test
+  public void test040_WaitFor() throws InterruptedException {
+    long since = updates.getCount();
+    assertNull("only check", updates.waitFor(area, since, 0));
+    long start = System.currentTimeMillis();
+    Thread outside = later(50, () -> update(new Rectangle(0, 0, 50, 50)));
+    assertNull("not intersecting: timeout", updates.waitFor(area, since, 300));
+    assertTrue("waited", System.currentTimeMillis() - start >= 250);
+    outside.join();
+    start = System.currentTimeMillis();
+    Thread inside = later(50, () -> update(new Rectangle(150, 150, 20, 20)));
+    assertEquals(new Rectangle(150, 150, 20, 20), updates.waitFor(area, since, 5000));
+    assertTrue("returned with the update", System.currentTimeMillis() - start < 2500);
+    inside.join();
+    assertEquals("already there: no wait", new Rectangle(150, 150, 20, 20), updates.waitFor(area, since, 5000));
+  }
+
+  @Test
+  public void test050_Close() throws InterruptedException {
+    long since = updates.getCount();
+    long start = System.currentTimeMillis();
+    Thread closer = later(50, () -> updates.close());
+    assertEquals("closed: the area", area, updates.waitFor(area, since, 5000));
+    assertTrue("returned with close", System.currentTimeMillis() - start < 2500);
+    closer.join();
+    assertFalse(updates.isActive());
+    update(new Rectangle(0, 0, 10, 10));
+    assertEquals("closed: changes no longer known", area, updates.getChanged(area, since));
+  }
+
+  @Test
+  public void test060_Listener() {
+    List<Long> counts = new ArrayList<>();
+    List<Rectangle> changed = new ArrayList<>();
+    VNCUpdates.Listener listener = (count, rects) -> {
+      counts.add(count);
+      changed.addAll(rects);
+    };
+    updates.addListener(listener);
+    update(new Rectangle(1, 2, 3, 4), new Rectangle(5, 6, 7, 8));
+    update();
+    assertEquals(1, counts.size());
+    assertEquals(1L, (long) counts.get(0));
+    assertEquals(2, changed.size());
+    updates.removeListener(listener);
+    update(new Rectangle(1, 2, 3, 4));
+    assertEquals(1, counts.size());
+  }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2010-2020, sikuli.org, sikulix.com - MIT license
+ */
+
+package org.sikuli.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * runs the benchmarks (all or those matching the given JMH options/patterns)
+ * <pre>
+ * java -jar Benchmarks/target/sikulixbenchmarks.jar                     (all)
+ * java -jar Benchmarks/target/sikulixbenchmarks.jar Matching -p screen=FHD
+ * java -jar Benchmarks/target/sikulixbenchmarks.jar -h                  (JMH options)
+ * </pre>
+ * the results are written as JSON to sikulixbenchmarks.json (if not given otherwise with -rf/-rff),
+ * to be compared with the results of a previous version
+ */
+public class BenchmarkRunner {
+
+  public static void main(String[] args) throws Exception {
+    CommandLineOptions options = new CommandLineOptions(args);
+    if (options.shouldHelp() || options.shouldList() || options.shouldListProfilers()
+        || options.shouldListResultFormats() || options.shouldListWithParams()) {
+      org.openjdk.jmh.Main.main(args);
+      return;
+    }
+    ChainedOptionsBuilder builder = new OptionsBuilder().parent(options);
+    if (!options.getResultFormat().hasValue()) {
+      builder.resultFormat(ResultFormatType.JSON);
+    }
+    if (!options.getResult().hasValue()) {
+      builder.result("sikulixbenchmarks.json");
+    }
+    new Runner(builder.build()).run();
+  }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2010-2020, sikuli.org, sikulix.com - MIT license
+ */
+
+package org.sikuli.benchmark;
+
+import org.opencv.core.Mat;
+import org.openjdk.jmh.annotations.*;
+import org.sikuli.script.Image;
+import org.sikuli.script.Match;
+import org.sikuli.script.support.SXOpenCV;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * conversion of screenshots and change detection on generated screens
+ * <pre>
+ * makeMat: BufferedImage (INT_RGB as delivered by Robot) to Mat
+ * makeBufferedImage: Mat to BufferedImage
+ * doFindChanges: changed areas between two screens (onChange observing)
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConversionBenchmark {
+
+  @Param({"FHD", "4K"})
+  public String screen;
+
+  @Param({"0", "10"})
+  public int changes;
+
+  private Fixtures.Desktop base;
+  private Image original;
+  private Image changed;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    Fixtures.init();
+    base = Fixtures.screen(screen);
+    original = new Image(base.mat);
+    changed = new Image(Fixtures.changed(base, changes));
+  }
+
+  @Benchmark
+  public Mat makeMat() {
+    return SXOpenCV.makeMat(base.image);
+  }
+
+  @Benchmark
+  public Object makeBufferedImage() {
+    return SXOpenCV.makeBufferedImage(base.mat);
+  }
+
+  @Benchmark
+  public List<Match> doFindChanges() {
+    return SXOpenCV.doFindChanges(original, changed);
+  }
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) 2010-2020, sikuli.org, sikulix.com - MIT license
+ */
+
+package org.sikuli.benchmark;
+
+import org.opencv.core.Core;
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+import org.opencv.imgproc.Imgproc;
+import org.sikuli.basics.Settings;
+import org.sikuli.script.Image;
+import org.sikuli.script.support.RunTime;
+import org.sikuli.script.support.SXOpenCV;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * generated screens and targets, made only from BufferedImages and Mats
+ * (no Screen, Robot or display needed: the benchmarks run headless, e.g. on CI)
+ * <pre>
+ * screens: FHD (1920x1080), 4K (3840x2160) - a desktop like layout of windows, buttons, icons and text
+ * targets: small (button 48x24), large (window part 400x300), masked (icon with transparent border),
+ *          plain (one color area), gray (button as gray image), many (icon shown 100 times)
+ * </pre>
+ * the same seed always produces the same content, so results are comparable between runs
+ */
+public class Fixtures {
+
+  private static final long SEED = 20200101;
+
+  public static final String[] WORDS = {"File", "Edit", "View", "Search", "Settings", "Help", "Open", "Save",
+      "Cancel", "Apply", "Window", "Project", "Build", "Run", "Debug", "Tools"};
+
+  private static boolean initDone = false;
+
+  public static synchronized void init() {
+    if (!initDone) {
+      RunTime.loadLibrary(RunTime.libOpenCV);
+      Settings.ActionLogs = false;
+      Settings.InfoLogs = false;
+      initDone = true;
+    }
+  }
+
+  public static Dimension size(String screen) {
+    if ("4K".equals(screen)) {
+      return new Dimension(3840, 2160);
+    }
+    return new Dimension(1920, 1080);
+  }
+
+  /**
+   * a generated screen with the targets of {@link #target(Desktop, String)} shown at known places
+   */
+  public static class Desktop {
+    public final BufferedImage image;
+    public final Mat mat;
+    final Rectangle small;
+    final Rectangle large;
+    final Rectangle masked;
+    final Rectangle plain;
+    final BufferedImage icon;
+    public final List<Rectangle> text = new ArrayList<>();
+
+    Desktop(BufferedImage image, Rectangle small, Rectangle large, Rectangle masked, Rectangle plain,
+           BufferedImage icon) {
+      this.image = image;
+      this.mat = SXOpenCV.makeMat(image);
+      this.small = small;
+      this.large = large;
+      this.masked = masked;
+      this.plain = plain;
+      this.icon = icon;
+    }
+  }
+
+  public static Desktop screen(String screen) {
+    Dimension size = size(screen);
+    Random random = new Random(SEED);
+    BufferedImage image = new BufferedImage(size.width, size.height, BufferedImage.TYPE_INT_RGB);
+    Graphics2D g = image.createGraphics();
+    g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+    g.setPaint(new GradientPaint(0, 0, new Color(40, 70, 120), size.width, size.height, new Color(90, 140, 190)));
+    g.fillRect(0, 0, size.width, size.height);
+
+    // windows with title bar, menu, buttons and text lines
+    int windows = size.width / 160;
+    for (int n = 0; n < windows; n++) {
+      int w = 300 + random.nextInt(500);
+      int h = 200 + random.nextInt(400);
+      int x = random.nextInt(size.width - w);
+      int y = random.nextInt(size.height - h);
+      drawWindow(g, random, x, y, w, h, null);
+    }
+
+    // the window providing small and large target (on top)
+    int x = size.width / 2 - 300;
+    int y = size.height / 2 - 200;
+    List<Rectangle> text = new ArrayList<>();
+    drawWindow(g, random, x, y, 600, 400, text);
+    Rectangle small = new Rectangle(x + 600 - 120, y + 400 - 40, 48, 24);
+    Rectangle large = new Rectangle(x + 100, y + 50, 400, 300);
+
+    // one color area
+    Rectangle plain = new Rectangle(size.width - 200, 40, 120, 80);
+    g.setColor(new Color(200, 60, 60));
+    g.fillRect(plain.x, plain.y, plain.width, plain.height);
+
+    // the icon shown many times (a grid in the lower left) and once masked on varying background
+    BufferedImage icon = icon();
+    for (int row = 0; row < 10; row++) {
+      for (int col = 0; col < 10; col++) {
+        g.drawImage(icon, 20 + col * 48, size.height - 500 + row * 48, null);
+      }
+    }
+    Rectangle masked = new Rectangle(size.width - 300, size.height - 300, icon.getWidth() + 8, icon.getHeight() + 8);
+    g.setPaint(new GradientPaint(masked.x, masked.y, Color.ORANGE, masked.x + masked.width, masked.y, Color.GREEN));
+    g.fillRect(masked.x, masked.y, masked.width, masked.height);
+    g.drawImage(icon, masked.x + 4, masked.y + 4, null);
+    g.dispose();
+
+    Desktop fixture = new Desktop(image, small, large, masked, plain, icon);
+    fixture.text.addAll(text);
+    return fixture;
+  }
+
+  private static void drawWindow(Graphics2D g, Random random, int x, int y, int w, int h, List<Rectangle> text) {
+    g.setColor(new Color(235, 235, 235));
+    g.fillRect(x, y, w, h);
+    g.setColor(new Color(60, 60, 60));
+    g.drawRect(x, y, w - 1, h - 1);
+    g.setColor(new Color(30 + random.nextInt(60), 60 + random.nextInt(60), 120 + random.nextInt(100)));
+    g.fillRect(x + 1, y + 1, w - 2, 22);
+    g.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 14));
+    g.setColor(Color.WHITE);
+    g.drawString(WORDS[random.nextInt(WORDS.length)], x + 8, y + 17);
+    g.setColor(Color.BLACK);
+    for (int line = 0; 40 + line * 22 < h - 60; line++) {
+      StringBuilder words = new StringBuilder();
+      for (int n = 0; n < 4 + random.nextInt(4); n++) {
+        words.append(WORDS[random.nextInt(WORDS.length)]).append(" ");
+      }
+      int ty = y + 44 + line * 22;
+      g.drawString(words.toString().trim(), x + 12, ty);
+      if (text != null) {
+        text.add(new Rectangle(x + 8, ty - 16, w - 16, 22));
+      }
+    }
+    for (int n = 0; n < 3; n++) {
+      int bx = x + w - 120 - n * 60;
+      int by = y + h - 40;
+      g.setColor(new Color(200, 200, 210));
+      g.fillRoundRect(bx, by, 48, 24, 6, 6);
+      g.setColor(new Color(90, 90, 110));
+      g.drawRoundRect(bx, by, 47, 23, 6, 6);
+      g.setFont(new Font(Font.SANS_SERIF, Font.BOLD, 11));
+      g.drawString(n == 0 ? "OK" : WORDS[n], bx + 6, by + 16);
+    }
+  }
+
+  private static BufferedImage icon() {
+    BufferedImage icon = new BufferedImage(32, 32, BufferedImage.TYPE_INT_RGB);
+    Graphics2D g = icon.createGraphics();
+    g.setColor(new Color(250, 250, 250));
+    g.fillRect(0, 0, 32, 32);
+    g.setColor(new Color(20, 120, 40));
+    g.fillOval(2, 2, 28, 28);
+    g.setColor(Color.YELLOW);
+    g.fillRect(10, 10, 12, 12);
+    g.setColor(Color.BLACK);
+    g.drawLine(4, 28, 28, 4);
+    g.dispose();
+    return icon;
+  }
+
+  /**
+   * @param screen the screen the target is taken from
+   * @param kind   small, large, masked, plain, gray or many
+   * @return the target image
+   */
+  public static Image target(Desktop screen, String kind) {
+    if ("large".equals(kind)) {
+      return crop(screen, screen.large);
+    } else if ("plain".equals(kind)) {
+      return crop(screen, screen.plain);
+    } else if ("gray".equals(kind)) {
+      Mat gray = new Mat();
+      Imgproc.cvtColor(crop(screen, screen.small).getContent(), gray, Imgproc.COLOR_BGR2GRAY);
+      return new Image(gray);
+    } else if ("masked".equals(kind)) {
+      // the icon with a transparent border (alpha channel: the border does not count)
+      Mat icon = SXOpenCV.makeMat(screen.icon);
+      Mat bgra = new Mat();
+      Imgproc.cvtColor(icon, bgra, Imgproc.COLOR_BGR2BGRA);
+      Mat withBorder = new Mat(icon.rows() + 8, icon.cols() + 8, bgra.type(), new org.opencv.core.Scalar(0, 0, 0, 0));
+      bgra.copyTo(withBorder.submat(new Rect(4, 4, icon.cols(), icon.rows())));
+      return new Image(withBorder);
+    } else if ("many".equals(kind)) {
+      return new Image(SXOpenCV.makeMat(screen.icon));
+    }
+    return crop(screen, screen.small);
+  }
+
+  private static Image crop(Desktop screen, Rectangle rect) {
+    return new Image(screen.mat.submat(new Rect(rect.x, rect.y, rect.width, rect.height)).clone());
+  }
+
+  /**
+   * the screen with some changed areas (for the change detection)
+   */
+  public static Mat changed(Desktop screen, int changes) {
+    Mat changed = screen.mat.clone();
+    Random random = new Random(SEED + changes);
+    for (int n = 0; n < changes; n++) {
+      int w = 20 + random.nextInt(200);
+      int h = 20 + random.nextInt(100);
+      int x = random.nextInt(changed.cols() - w);
+      int y = random.nextInt(changed.rows() - h);
+      Mat area = changed.submat(new Rect(x, y, w, h));
+      Core.bitwise_not(area, area);
+    }
+    return changed;
+  }
+}
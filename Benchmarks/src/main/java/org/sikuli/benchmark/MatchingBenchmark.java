@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2010-2020, sikuli.org, sikulix.com - MIT license
+ */
+
+package org.sikuli.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.sikuli.script.Finder;
+import org.sikuli.script.Image;
+import org.sikuli.script.Match;
+import org.sikuli.script.support.FindAttributes;
+import org.sikuli.script.support.SXOpenCV;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * image search on generated screens
+ * <pre>
+ * finderFind / finderFindAll: Finder (Finder2.doFindImage, used by Observer and findAnyCollect)
+ * findMatch / findMatchAll: SXOpenCV.findMatch (used by Region.find/wait/exists)
+ * findAttributes: preparing a target for the search (resize, mask, statistics)
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MatchingBenchmark {
+
+  @Param({"FHD", "4K"})
+  public String screen;
+
+  @Param({"small", "large", "masked", "plain", "gray", "many"})
+  public String target;
+
+  private Fixtures.Desktop base;
+  private Image what;
+  private FindAttributes findAttributes;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    Fixtures.init();
+    base = Fixtures.screen(screen);
+    what = Fixtures.target(base, target);
+    findAttributes = new FindAttributes(what);
+  }
+
+  @Benchmark
+  public List<Match> finderFind() {
+    Finder finder = new Finder(base.mat);
+    finder.find(what);
+    return finder.getList();
+  }
+
+  @Benchmark
+  public List<Match> finderFindAll() {
+    Finder finder = new Finder(base.mat);
+    finder.findAll(what);
+    return finder.getList();
+  }
+
+  @Benchmark
+  public Match findMatch() {
+    return SXOpenCV.findMatch(base.mat, findAttributes, false);
+  }
+
+  @Benchmark
+  public Match findMatchAll() {
+    return SXOpenCV.findMatch(base.mat, findAttributes, true);
+  }
+
+  @Benchmark
+  public FindAttributes findAttributes() {
+    return new FindAttributes(what);
+  }
+}
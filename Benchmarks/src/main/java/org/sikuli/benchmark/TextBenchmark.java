@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2010-2020, sikuli.org, sikulix.com - MIT license
+ */
+
+package org.sikuli.benchmark;
+
+import org.opencv.core.Rect;
+import org.openjdk.jmh.annotations.*;
+import org.sikuli.script.Finder;
+import org.sikuli.script.Image;
+import org.sikuli.script.Match;
+import org.sikuli.script.OCR;
+
+import java.awt.*;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * text recognition on generated screens (needs Tesseract to be available - see the SikuliX docs)
+ * <pre>
+ * readWords: OCR.readWords on a window with some text lines (area) or the complete screen
+ * findText: Finder.findText of a word in the window
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TextBenchmark {
+
+  @Param({"FHD", "4K"})
+  public String screen;
+
+  @Param({"area", "screen"})
+  public String range;
+
+  private Image where;
+  private String word;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    Fixtures.init();
+    Fixtures.Desktop base = Fixtures.screen(screen);
+    if ("area".equals(range)) {
+      Rectangle area = base.text.get(0).union(base.text.get(base.text.size() - 1));
+      where = new Image(base.mat.submat(new Rect(area.x, area.y, area.width, area.height)).clone());
+    } else {
+      where = new Image(base.mat);
+    }
+    List<Match> words = OCR.readWords(where);
+    word = words.isEmpty() ? Fixtures.WORDS[0] : words.get(words.size() / 2).getText();
+  }
+
+  @Benchmark
+  public List<Match> readWords() {
+    return OCR.readWords(where);
+  }
+
+  @Benchmark
+  public List<Match> findText() {
+    Finder finder = new Finder(where);
+    finder.findText(word);
+    return finder.getList();
+  }
+}